@@ -0,0 +1,293 @@
+package jmh;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The GameBenchmark measurements run by JMH, each in its own forked JVMs.
+ * <p>
+ * JMH needs benchmarks to be in a package, and the game is in the default
+ * package, which can't be imported, so each workload is set up through
+ * {@code GameBenchmark.createWorkload} by name. Workloads run on the event
+ * dispatch thread like the real game, a batch at a time, so handing a batch
+ * over to that thread costs little per operation. Each workload is closed
+ * after its trial, which shuts its game's threads down.
+ * <p>
+ * Run with {@code gradle jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 2, jvmArgsAppend = "-Djava.awt.headless=true")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OperationsPerInvocation(GameBenchmarks.BATCH)
+public class GameBenchmarks
+{
+
+	static final int BATCH = 100;
+
+	@Benchmark
+	public void splitImage(ImageState state)
+	{
+		state.workload.runBatch();
+	}
+
+	@Benchmark
+	public void resetProblem(ResetState state)
+	{
+		state.workload.runBatch();
+	}
+
+	@Benchmark
+	public void paintComponent(PaintState state)
+	{
+		state.workload.runBatch();
+	}
+
+	@Benchmark
+	public void keyPressed(KeyState state)
+	{
+		state.workload.runBatch();
+	}
+
+	@Benchmark
+	public void gameCompleted(ResultsState state)
+	{
+		state.workload.runBatch();
+	}
+
+	@Benchmark
+	public void fireEvent(EventState state)
+	{
+		state.workload.runBatch();
+	}
+
+	@State(Scope.Thread)
+	public static class ImageState
+	{
+		@Param({ "2", "3", "4" })
+		public String gridSize;
+		@Param({ "800x600", "1920x1080" })
+		public String imageSize;
+
+		Workload workload;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			workload = new Workload("splitImage", params("gridSize", gridSize, "imageSize", imageSize));
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			workload.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ResetState
+	{
+		Workload workload;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			workload = new Workload("resetProblem", params());
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			workload.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class PaintState
+	{
+		@Param({ "2", "3", "4" })
+		public String gridSize;
+		@Param({ "800x600", "1920x1080" })
+		public String imageSize;
+		@Param({ "COVER", "PROBLEM", "IMAGE" })
+		public String state;
+
+		Workload workload;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			workload = new Workload("paintComponent",
+					params("gridSize", gridSize, "imageSize", imageSize, "state", state));
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			workload.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class KeyState
+	{
+		@Param({ "2", "3", "4" })
+		public String gridSize;
+
+		Workload workload;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			workload = new Workload("keyPressed", params("gridSize", gridSize));
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			workload.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class ResultsState
+	{
+		@Param({ "2", "3", "4" })
+		public String gridSize;
+
+		Workload workload;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			workload = new Workload("gameCompleted", params("gridSize", gridSize));
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			workload.close();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class EventState
+	{
+		@Param({ "SYNCHRONOUS", "DROP", "BLOCK" })
+		public String delivery;
+
+		Workload workload;
+
+		@Setup(Level.Trial)
+		public void setUp()
+		{
+			workload = new Workload("fireEvent", params("delivery", delivery));
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown()
+		{
+			workload.close();
+		}
+	}
+
+	private static Map<String, String> params(String... namesAndValues)
+	{
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		for (int i = 0; i + 1 < namesAndValues.length; i += 2)
+			params.put(namesAndValues[i], namesAndValues[i + 1]);
+		return params;
+	}
+
+	/**
+	 * A GameBenchmark workload, set up, run, and closed on the event dispatch
+	 * thread.
+	 */
+	static class Workload
+	{
+
+		private Runnable op;
+		private AutoCloseable closer;
+
+		Workload(String benchmark, Map<String, String> params)
+		{
+			onEventThread(() ->
+			{
+				Method create = Class.forName("GameBenchmark")
+						.getMethod("createWorkload", String.class, Map.class);
+				Object workload = create.invoke(null, benchmark, params);
+				op = (Runnable) workload;
+				closer = (AutoCloseable) workload;
+			});
+		}
+
+		void runBatch()
+		{
+			onEventThread(() ->
+			{
+				for (int i = 0; i < BATCH; ++i)
+					op.run();
+			});
+		}
+
+		void close()
+		{
+			onEventThread(() -> closer.close());
+		}
+
+	}
+
+	private interface EventThreadTask
+	{
+		void run() throws Exception;
+	}
+
+	private static void onEventThread(EventThreadTask task)
+	{
+		try
+		{
+			SwingUtilities.invokeAndWait(() ->
+			{
+				try
+				{
+					task.run();
+				}
+				catch (Exception e)
+				{
+					throw new IllegalStateException(e);
+				}
+			});
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted", e);
+		}
+		catch (InvocationTargetException e)
+		{
+			throw new IllegalStateException("Workload failed", e.getCause());
+		}
+	}
+
+}
@@ -0,0 +1,46 @@
+#!/bin/sh
+# Starts the math game, compiling it first if the sources have changed.
+#
+# Usage: ./mathgame.sh [--cds] [--timings]
+#   --cds      Start from an AppCDS archive of the classes the game loads while
+#              starting up, which saves loading and verifying them each time.
+#              The archive is made by a training run that quits as soon as the
+#              window is up, the first time and whenever the game is rebuilt.
+#              Needs JDK 13 or later.
+#   --timings  Log how long after the JVM started each startup phase finished.
+
+set -e
+cd "$(dirname "$0")"
+
+BUILD=build
+JAR=$BUILD/mathgame.jar
+ARCHIVE=$BUILD/mathgame.jsa
+
+cds=false
+gameArgs=
+for arg in "$@"; do
+	case "$arg" in
+		--cds) cds=true ;;
+		--timings) gameArgs="$gameArgs -timings" ;;
+		*) echo "Usage: $0 [--cds] [--timings]" >&2; exit 1 ;;
+	esac
+done
+
+# class data sharing only archives classes loaded from jars
+if [ ! -f "$JAR" ] || [ -n "$(find src -name '*.java' -newer "$JAR")" ]; then
+	echo "Building $JAR" >&2
+	rm -rf "$BUILD/classes" "$ARCHIVE"
+	mkdir -p "$BUILD/classes"
+	javac -encoding ISO-8859-1 -d "$BUILD/classes" src/*.java
+	jar cf "$JAR" -C "$BUILD/classes" .
+fi
+
+if [ "$cds" = true ]; then
+	if [ ! -f "$ARCHIVE" ]; then
+		echo "Training $ARCHIVE" >&2
+		java -XX:ArchiveClassesAtExit="$ARCHIVE" -cp "$JAR" MathGame -exitAfterStartup
+	fi
+	exec java -XX:SharedArchiveFile="$ARCHIVE" -cp "$JAR" MathGame $gameArgs
+fi
+
+exec java -cp "$JAR" MathGame $gameArgs
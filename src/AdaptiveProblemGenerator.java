@@ -0,0 +1,225 @@
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Deals boards that focus on the facts a student is slow or inaccurate on,
+ * using the history in a {@link FactIndex}.
+ * <p>
+ * Each fact in the tables of the generator's types is weighted by how its
+ * decayed mean time compares to the student's overall mean, and by how often
+ * it is missed. Facts with no history get the weight of an average fact, so
+ * a new student gets an even mix. Problems are drawn with a
+ * {@link FenwickSampler}. Every weight is worked out again once per board,
+ * since the overall mean moves them all; between boards, each answer only
+ * updates the weight of the fact answered, against the overall mean the board
+ * was dealt with. So drawing a problem or catching up on an answer takes time
+ * logarithmic in the number of facts, however much history there is.
+ * <p>
+ * A board depends on the index as well as the seed, so the same seed only
+ * gives the same board for the same history. Facts only repeat on a board when
+ * there are more tiles than facts, as with {@link TableProblemGenerator}.
+ */
+public class AdaptiveProblemGenerator implements ProblemGenerator
+{
+
+	// how much more often a fact that is always missed comes up
+	private static final double MISS_WEIGHT = 2;
+	// keep every fact possible, and stop one slow fact from filling the board
+	private static final double MIN_SPEED_WEIGHT = 0.25;
+	private static final double MAX_SPEED_WEIGHT = 4;
+
+	private final ProblemType[] types;
+	private final FactIndex index;
+	private Snapshot snapshot;
+
+	/**
+	 * Initializes an AdaptiveProblemGenerator.
+	 * @param types The problem type(s).
+	 * @param index The student's history.
+	 */
+	public AdaptiveProblemGenerator(List<ProblemType> types, FactIndex index)
+	{
+		if (types.isEmpty())
+			throw new IllegalArgumentException("At least one problem type is needed");
+
+		this.types = types.toArray(new ProblemType[types.size()]);
+		this.index = index;
+	}
+
+	/**
+	 * Gets the history the weights come from.
+	 * @return The fact index.
+	 */
+	public FactIndex getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * Deals a board weighted by the index, without replacement. Facts only
+	 * repeat on a board when there are more tiles than facts. Boards can be
+	 * dealt on several threads at once.
+	 */
+	@Override
+	public Problem[] generate(int numFamily, int count, SplittableRandom rng)
+	{
+		Problem[] pool;
+		FenwickSampler sampler;
+		synchronized (this)
+		{
+			Snapshot current = getSnapshot(numFamily, true);
+			pool = current.pool;
+			// a copy of its own, so dealing doesn't hold the lock
+			sampler = new FenwickSampler(current.sampler);
+		}
+
+		int[] dealt = new int[pool.length];
+		double[] dealtWeights = new double[pool.length];
+		int dealtCount = 0;
+
+		Problem[] board = new Problem[count];
+		for (int i = 0; i < count; ++i)
+		{
+			// every fact is on the board, so start dealing them again
+			if (dealtCount == pool.length)
+			{
+				for (int j = 0; j < dealtCount; ++j)
+					sampler.setWeight(dealt[j], dealtWeights[j]);
+				dealtCount = 0;
+			}
+
+			int pick = sampler.sample(rng);
+			dealt[dealtCount] = pick;
+			dealtWeights[dealtCount] = sampler.getWeight(pick);
+			++dealtCount;
+			sampler.setWeight(pick, 0);
+
+			board[i] = pool[pick];
+		}
+		return board;
+	}
+
+	/**
+	 * Draws one problem weighted by the index.
+	 */
+	@Override
+	public synchronized Problem pick(int numFamily, SplittableRandom rng)
+	{
+		Snapshot current = getSnapshot(numFamily, false);
+		return current.pool[current.sampler.sample(rng)];
+	}
+
+	/**
+	 * Gets the weight of a fact.
+	 * @param problem The fact.
+	 * @return The weight, where 1 is an average fact.
+	 */
+	public double getWeight(Problem problem)
+	{
+		return getWeight(problem, index.getOverallMeanNanos());
+	}
+
+	private double getWeight(Problem problem, double overallMeanNanos)
+	{
+		if (!index.contains(problem))
+			return 1;
+
+		double speed = index.getMeanNanos(problem) / overallMeanNanos;
+		speed = Math.min(Math.max(speed, MIN_SPEED_WEIGHT), MAX_SPEED_WEIGHT);
+		return speed * (1 + MISS_WEIGHT * (1 - index.getAccuracy(problem)));
+	}
+
+	/**
+	 * Gets the facts and sampler for a number family, caught up with the index.
+	 * @param numFamily The number family.
+	 * @param newBoard Whether a board is being dealt, which works out every
+	 * weight again if anything was answered.
+	 * @return The snapshot.
+	 */
+	private Snapshot getSnapshot(int numFamily, boolean newBoard)
+	{
+		Snapshot current = snapshot;
+		long version = index.getVersion();
+		if (current == null || current.numFamily != numFamily)
+			current = new Snapshot(numFamily);
+		else if (current.version != version)
+		{
+			// catching up costs a log per answer, so past a full rebuild's worth
+			// or once the journal has forgotten an answer, just rebuild
+			if (newBoard || Double.isNaN(current.overallMeanNanos)
+					|| version - current.version > current.pool.length || !current.catchUp())
+				current = new Snapshot(numFamily);
+		}
+		snapshot = current;
+		return current;
+	}
+
+	/**
+	 * The facts and sampler for one number family, with weights worked out
+	 * against one overall mean.
+	 */
+	private class Snapshot
+	{
+
+		private final int numFamily;
+		private final double overallMeanNanos;
+		private final Problem[] pool;
+		private final Map<Long, Integer> poolIndices;
+		private final FenwickSampler sampler;
+		private long version;
+
+		private Snapshot(int numFamily)
+		{
+			this.numFamily = numFamily;
+			this.version = index.getVersion();
+			this.overallMeanNanos = index.getOverallMeanNanos();
+
+			int poolSize = 0;
+			for (ProblemType type : types)
+				poolSize += ProblemTable.get(type, numFamily).length;
+
+			pool = new Problem[poolSize];
+			poolIndices = new HashMap<Long, Integer>(poolSize * 2);
+			double[] weights = new double[poolSize];
+			int poolIndex = 0;
+			for (ProblemType type : types)
+			{
+				for (Problem problem : ProblemTable.get(type, numFamily))
+				{
+					pool[poolIndex] = problem;
+					poolIndices.put(FactIndex.keyOf(problem), poolIndex);
+					weights[poolIndex] = getWeight(problem, overallMeanNanos);
+					++poolIndex;
+				}
+			}
+
+			sampler = new FenwickSampler(weights);
+		}
+
+		/**
+		 * Updates the weights of the facts answered since the snapshot was last
+		 * up to date.
+		 * @return Whether every answer was still in the index's journal.
+		 */
+		private boolean catchUp()
+		{
+			long latest = index.getVersion();
+			for (; version < latest; ++version)
+			{
+				Problem problem = index.getRecorded(version);
+				if (problem == null)
+					return false;
+
+				// answers to other number families don't change this pool
+				Integer poolIndex = poolIndices.get(FactIndex.keyOf(problem));
+				if (poolIndex != null)
+					sampler.setWeight(poolIndex, getWeight(pool[poolIndex], overallMeanNanos));
+			}
+			return true;
+		}
+
+	}
+
+}
@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one render loop for a game. Every animation, such as a tile fading in
+ * or the time-attack countdown, is stepped from the same fixed-rate tick, so
+ * a board with many things moving still costs one timer and one batch of
+ * repaints per frame. The clock only ticks while something is animating.
+ * <p>
+ * Frames the event dispatch thread falls behind on are skipped rather than
+ * queued up, and counted as dropped, along with how far apart the frames
+ * that did run were. The clock is used on the event dispatch thread only.
+ */
+public class AnimationClock
+{
+
+	/**
+	 * Something the clock steps once a frame.
+	 */
+	public interface Animation
+	{
+		/**
+		 * Steps the animation to the given time.
+		 * @param nowNanos The time of the frame.
+		 * @return Whether the animation should keep running.
+		 */
+		boolean frame(long nowNanos);
+	}
+
+	/**
+	 * The default time between frames in milliseconds, about 60 a second.
+	 */
+	public static final long DEFAULT_FRAME_MILLIS = 16;
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private final GameScheduler scheduler;
+	private final long frameMillis;
+	private final long frameNanos;
+
+	private final ArrayList<Animation> animations = new ArrayList<Animation>();
+	private final LatencyHistogram frameIntervals = new LatencyHistogram();
+
+	private GameScheduler.Handle tick;
+	private long startNanos;
+	private long lastFrameIndex;
+	private long lastFrameNanos;
+	private long frameCount;
+	private long droppedFrameCount;
+
+	/**
+	 * Initializes an AnimationClock with the default frame rate.
+	 * @param scheduler The scheduler to run the clock on.
+	 */
+	public AnimationClock(GameScheduler scheduler)
+	{
+		this(scheduler, DEFAULT_FRAME_MILLIS);
+	}
+	/**
+	 * Initializes an AnimationClock.
+	 * @param scheduler The scheduler to run the clock on.
+	 * @param frameMillis The time between frames in milliseconds.
+	 */
+	public AnimationClock(GameScheduler scheduler, long frameMillis)
+	{
+		this.scheduler = scheduler;
+		this.frameMillis = frameMillis;
+		frameNanos = TimeUnit.MILLISECONDS.toNanos(frameMillis);
+	}
+
+	/**
+	 * Starts stepping an animation from the next frame. Starting one that is
+	 * already running does nothing.
+	 * @param animation The animation.
+	 */
+	public void start(Animation animation)
+	{
+		if (animations.contains(animation))
+			return;
+
+		animations.add(animation);
+		if (tick == null)
+		{
+			startNanos = System.nanoTime();
+			lastFrameIndex = 0;
+			lastFrameNanos = startNanos;
+			tick = scheduler.scheduleAtFixedRate(this::tick, frameMillis);
+		}
+	}
+	/**
+	 * Stops stepping an animation.
+	 * @param animation The animation.
+	 */
+	public void stop(Animation animation)
+	{
+		animations.remove(animation);
+		if (animations.isEmpty())
+			cancelTick();
+	}
+	/**
+	 * Stops every animation.
+	 */
+	public void stopAll()
+	{
+		animations.clear();
+		cancelTick();
+	}
+
+	/**
+	 * Gets whether an animation is running.
+	 * @param animation The animation.
+	 * @return Whether it is running.
+	 */
+	public boolean isRunning(Animation animation)
+	{
+		return animations.contains(animation);
+	}
+	/**
+	 * Gets the number of animations running.
+	 * @return The number of animations.
+	 */
+	public int getAnimationCount()
+	{
+		return animations.size();
+	}
+
+	/**
+	 * Gets the number of frames run.
+	 * @return The frame count.
+	 */
+	public long getFrameCount()
+	{
+		return frameCount;
+	}
+	/**
+	 * Gets the number of frames skipped because the event dispatch thread was
+	 * busy when they were due.
+	 * @return The dropped frame count.
+	 */
+	public long getDroppedFrameCount()
+	{
+		return droppedFrameCount;
+	}
+	/**
+	 * Gets the time between each frame and the one before it.
+	 * @return The frame interval histogram.
+	 */
+	public LatencyHistogram getFrameIntervals()
+	{
+		return frameIntervals;
+	}
+	/**
+	 * Gets the frame rate from the mean time between frames.
+	 * @return The frames per second, or 0 if no frames have run.
+	 */
+	public double getFramesPerSecond()
+	{
+		double meanNanos = frameIntervals.getMeanNanos();
+		return meanNanos == 0 ? 0 : NANOS_PER_SECOND / meanNanos;
+	}
+
+	private void tick()
+	{
+		long now = System.nanoTime();
+		// a frame up to half a period late still counts as on time
+		long frameIndex = (now - startNanos + frameNanos / 2) / frameNanos;
+		long dropped = Math.max(0, frameIndex - lastFrameIndex - 1);
+		long interval = now - lastFrameNanos;
+
+		++frameCount;
+		droppedFrameCount += dropped;
+		frameIntervals.record(interval);
+		RenderMetrics.get().recordFrame(interval, dropped);
+		lastFrameIndex = frameIndex;
+		lastFrameNanos = now;
+
+		// animations may start or stop others while they run
+		Animation[] running = animations.toArray(new Animation[animations.size()]);
+		for (Animation animation : running)
+		{
+			if (animations.contains(animation) && !animation.frame(now))
+				animations.remove(animation);
+		}
+
+		if (animations.isEmpty())
+			cancelTick();
+	}
+
+	private void cancelTick()
+	{
+		if (tick != null)
+		{
+			tick.cancel();
+			tick = null;
+		}
+	}
+
+}
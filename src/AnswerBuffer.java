@@ -0,0 +1,154 @@
+/**
+ * The digits typed for an answer. Digits fill in from the right, like a
+ * calculator, and the value is kept up to date as they are typed, so editing
+ * never builds Strings.
+ */
+public class AnswerBuffer
+{
+
+	/**
+	 * The most digits an answer can have without overflowing an int.
+	 */
+	public static final int MAX_WIDTH = 9;
+
+	private final int[] digits;
+	private int length;
+	private int value;
+
+	/**
+	 * Initializes an empty AnswerBuffer.
+	 * @param width The most digits the answer can have.
+	 */
+	public AnswerBuffer(int width)
+	{
+		if (width < 1 || width > MAX_WIDTH)
+			throw new IllegalArgumentException("Answer width must be from 1 to " + MAX_WIDTH);
+
+		digits = new int[width];
+	}
+
+	/**
+	 * Gets the number of digits needed to show a number.
+	 * @param number The number, at least 0.
+	 * @return The number of digits.
+	 */
+	public static int digitsIn(int number)
+	{
+		int count = 1;
+		while (number >= 10)
+		{
+			number /= 10;
+			++count;
+		}
+		return count;
+	}
+
+	/**
+	 * Gets the most digits the answer can have.
+	 * @return The width.
+	 */
+	public int getWidth()
+	{
+		return digits.length;
+	}
+	/**
+	 * Gets the number of digits typed.
+	 * @return The length.
+	 */
+	public int getLength()
+	{
+		return length;
+	}
+	/**
+	 * Gets whether no digits have been typed.
+	 * @return Whether the answer is empty.
+	 */
+	public boolean isEmpty()
+	{
+		return length == 0;
+	}
+	/**
+	 * Gets whether no more digits can be typed.
+	 * @return Whether the answer is full.
+	 */
+	public boolean isFull()
+	{
+		return length == digits.length;
+	}
+	/**
+	 * Gets the number typed.
+	 * @return The value, or 0 if the answer is empty.
+	 */
+	public int getValue()
+	{
+		return value;
+	}
+	/**
+	 * Gets where the caret is shown, which is just left of the typed digits.
+	 * @return The index of the caret, or -1 if the answer is full.
+	 */
+	public int getCaretIndex()
+	{
+		return digits.length - length - 1;
+	}
+
+	/**
+	 * Types a digit. A lone 0 is replaced rather than followed.
+	 * @param digit The digit, from 0 to 9.
+	 * @return Whether the digit was typed.
+	 */
+	public boolean type(int digit)
+	{
+		if (length == 1 && value == 0)
+		{
+			digits[0] = digit;
+			value = digit;
+			return true;
+		}
+		if (isFull())
+			return false;
+
+		digits[length++] = digit;
+		value = value * 10 + digit;
+		return true;
+	}
+	/**
+	 * Removes the last digit typed.
+	 * @return Whether there was a digit to remove.
+	 */
+	public boolean backspace()
+	{
+		if (isEmpty())
+			return false;
+
+		--length;
+		value /= 10;
+		return true;
+	}
+	/**
+	 * Removes all the digits.
+	 */
+	public void clear()
+	{
+		length = 0;
+		value = 0;
+	}
+
+	/**
+	 * Gets the character to show at a position, with blanks shown as
+	 * underscores.
+	 * @param index The position, from 0 to the width.
+	 * @param caret The character to show at the caret.
+	 * @return The character.
+	 */
+	public char getDisplayChar(int index, char caret)
+	{
+		int digitIndex = index - (digits.length - length);
+		if (digitIndex >= 0)
+			return (char) ('0' + digits[digitIndex]);
+		if (index == getCaretIndex())
+			return caret;
+		return '_';
+	}
+
+}
@@ -0,0 +1,98 @@
+/**
+ * The one blink clock for a game. Only the problem panel that is currently
+ * open has its caret blinked, so covered panels cost nothing.
+ */
+public class CaretClock
+{
+
+	/**
+	 * Something with a caret the clock can blink.
+	 */
+	public interface Caret
+	{
+		/**
+		 * Blinks the caret once.
+		 * @return Whether the caret should keep blinking.
+		 */
+		boolean blinkCaret();
+	}
+
+	/**
+	 * The default time between caret blinks in milliseconds.
+	 */
+	public static final long DEFAULT_INTERVAL = 500;
+
+	private final GameScheduler scheduler;
+	private final long intervalMillis;
+
+	private GameScheduler.Handle tick;
+	private Caret activePanel;
+
+	/**
+	 * Initializes a CaretClock with the default blink interval.
+	 * @param scheduler The scheduler to run the clock on.
+	 */
+	public CaretClock(GameScheduler scheduler)
+	{
+		this(scheduler, DEFAULT_INTERVAL);
+	}
+	/**
+	 * Initializes a CaretClock.
+	 * @param scheduler The scheduler to run the clock on.
+	 * @param intervalMillis The time between caret blinks in milliseconds.
+	 */
+	public CaretClock(GameScheduler scheduler, long intervalMillis)
+	{
+		this.scheduler = scheduler;
+		this.intervalMillis = intervalMillis;
+	}
+
+	/**
+	 * Starts blinking a panel's caret, taking the clock away from any other
+	 * panel.
+	 * @param panel The panel to blink.
+	 */
+	public void start(Caret panel)
+	{
+		cancelTick();
+		activePanel = panel;
+		tick = scheduler.scheduleAtFixedRate(this::tick, intervalMillis);
+	}
+	/**
+	 * Stops blinking a panel's caret if the clock is driving it.
+	 * @param panel The panel to stop.
+	 */
+	public void stop(Caret panel)
+	{
+		if (activePanel == panel)
+		{
+			cancelTick();
+			activePanel = null;
+		}
+	}
+
+	/**
+	 * Gets the panel whose caret is blinking.
+	 * @return The active panel, or null if no caret is blinking.
+	 */
+	public Caret getActivePanel()
+	{
+		return activePanel;
+	}
+
+	private void tick()
+	{
+		if (activePanel != null && !activePanel.blinkCaret())
+			stop(activePanel);
+	}
+
+	private void cancelTick()
+	{
+		if (tick != null)
+		{
+			tick.cancel();
+			tick = null;
+		}
+	}
+
+}
@@ -0,0 +1,21 @@
+/**
+ * How an {@link EventPipeline} delivers events to a listener.
+ */
+public enum Delivery
+{
+	/**
+	 * On the thread that fires the event, before firing returns. For the game
+	 * panels that is the event dispatch thread, so the listener may touch Swing.
+	 */
+	SYNCHRONOUS,
+	/**
+	 * On the listener's own dispatcher thread, dropping new events while the
+	 * listener's queue is full.
+	 */
+	DROP,
+	/**
+	 * On the listener's own dispatcher thread, making the firing thread wait
+	 * while the listener's queue is full.
+	 */
+	BLOCK
+}
@@ -0,0 +1,368 @@
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+/**
+ * Delivers events to listeners, either right away on the firing thread or
+ * later on a dispatcher thread, so a slow listener such as a logger can't hold
+ * up input handling.
+ * <p>
+ * Each listener delivered to off the firing thread has its own bounded
+ * lock-free queue and its own dispatcher thread. Firing an event only adds it
+ * to those queues, and each dispatcher empties its queue before sleeping, so a
+ * burst of events costs one wake-up. A slow listener only delays its own events:
+ * the other listeners' dispatchers carry on, and the firing thread never waits
+ * for another listener's backlog. When a listener's queue is full its
+ * {@link Delivery} decides whether the event is dropped or the firing thread
+ * waits, so only a slow {@link Delivery#BLOCK} listener can hold up firing. A
+ * listener that throws is counted, and reported the first time, and the other
+ * listeners still get the event.
+ * <p>
+ * Listeners may be added and removed from any thread. A removed listener's
+ * dispatcher ends without delivering what is left in its queue.
+ * @param <L> The listener type.
+ * @param <E> The event type.
+ */
+public class EventPipeline<L, E>
+{
+
+	/**
+	 * How many events a listener's queue holds unless another size is given.
+	 */
+	public static final int DEFAULT_CAPACITY = 1024;
+
+	// how long a blocked firing thread waits before checking for room again
+	private static final long BLOCK_PARK_NANOS = 100000;
+
+	private final String name;
+	private final BiConsumer<L, E> deliverer;
+	private final int capacity;
+
+	private final CopyOnWriteArrayList<Subscription> subscriptions
+			= new CopyOnWriteArrayList<Subscription>();
+	private final LongAdder deliveredCount = new LongAdder();
+	private final LongAdder droppedCount = new LongAdder();
+	private final LongAdder failedCount = new LongAdder();
+	private final AtomicInteger dispatcherCount = new AtomicInteger();
+
+	private volatile boolean closed;
+
+	/**
+	 * Initializes an EventPipeline with the default queue size.
+	 * @param name The name of the pipeline, which its dispatcher threads are
+	 * named after.
+	 * @param deliverer Passes an event to a listener, such as
+	 * {@code ProblemPanelListener::problemCompleted}.
+	 */
+	public EventPipeline(String name, BiConsumer<L, E> deliverer)
+	{
+		this(name, deliverer, DEFAULT_CAPACITY);
+	}
+	/**
+	 * Initializes an EventPipeline.
+	 * @param name The name of the pipeline, which its dispatcher threads are
+	 * named after.
+	 * @param deliverer Passes an event to a listener.
+	 * @param capacity How many events each listener's queue holds, rounded
+	 * up to a power of two.
+	 */
+	public EventPipeline(String name, BiConsumer<L, E> deliverer, int capacity)
+	{
+		if (capacity < 1 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Capacity must be from 1 to " + (1 << 30));
+
+		this.name = name;
+		this.deliverer = deliverer;
+
+		int rounded = 1;
+		while (rounded < capacity)
+			rounded <<= 1;
+		this.capacity = rounded;
+	}
+
+	/**
+	 * Adds a listener that gets events synchronously.
+	 * @param listener The listener to add.
+	 */
+	public void add(L listener)
+	{
+		add(listener, Delivery.SYNCHRONOUS);
+	}
+	/**
+	 * Adds a listener.
+	 * @param listener The listener to add.
+	 * @param delivery How the listener gets events.
+	 */
+	public void add(L listener, Delivery delivery)
+	{
+		if (closed)
+			throw new IllegalStateException("Pipeline " + name + " is closed");
+
+		Subscription subscription = new Subscription(listener, delivery);
+		subscriptions.add(subscription);
+		subscription.start();
+	}
+	/**
+	 * Removes a listener. Events already queued for it are not delivered.
+	 * @param listener The listener to remove.
+	 */
+	public void remove(L listener)
+	{
+		for (Subscription subscription : subscriptions)
+		{
+			if (subscription.listener.equals(listener))
+			{
+				subscriptions.remove(subscription);
+				subscription.stop();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Fires an event to every listener.
+	 * @param event The event.
+	 */
+	public void fire(E event)
+	{
+		for (Subscription subscription : subscriptions)
+		{
+			if (subscription.delivery == Delivery.SYNCHRONOUS)
+				subscription.deliver(event);
+			else
+				subscription.offer(event);
+		}
+	}
+
+	/**
+	 * Gets the number of events delivered to listeners.
+	 * @return The number delivered.
+	 */
+	public long getDeliveredCount()
+	{
+		return deliveredCount.sum();
+	}
+	/**
+	 * Gets the number of events dropped because a listener's queue was full.
+	 * @return The number dropped.
+	 */
+	public long getDroppedCount()
+	{
+		return droppedCount.sum();
+	}
+	/**
+	 * Gets the number of times a listener threw.
+	 * @return The number of failures.
+	 */
+	public long getFailedCount()
+	{
+		return failedCount.sum();
+	}
+	/**
+	 * Gets the number of events waiting for the dispatchers.
+	 * @return The number queued.
+	 */
+	public int getQueuedCount()
+	{
+		int queued = 0;
+		for (Subscription subscription : subscriptions)
+		{
+			if (subscription.queue != null)
+				queued += subscription.queue.size();
+		}
+		return queued;
+	}
+
+	/**
+	 * Stops taking asynchronous events. Each dispatcher thread delivers the
+	 * events already queued and then ends. Synchronous listeners still get events.
+	 */
+	public void close()
+	{
+		closed = true;
+		for (Subscription subscription : subscriptions)
+			subscription.wake();
+	}
+
+	/**
+	 * One listener and, unless it is synchronous, its queue and the dispatcher
+	 * thread that drains it.
+	 */
+	private class Subscription
+	{
+
+		private final L listener;
+		private final Delivery delivery;
+		private final EventQueue<E> queue;
+		private final Thread dispatcher;
+		private volatile boolean waiting;
+		private volatile boolean stopped;
+		private volatile boolean failed;
+
+		private Subscription(L listener, Delivery delivery)
+		{
+			this.listener = listener;
+			this.delivery = delivery;
+			if (delivery == Delivery.SYNCHRONOUS)
+			{
+				queue = null;
+				dispatcher = null;
+			}
+			else
+			{
+				queue = new EventQueue<E>(capacity);
+				dispatcher = new Thread(this::dispatch, name + "-" + dispatcherCount.incrementAndGet());
+				dispatcher.setDaemon(true);
+			}
+		}
+
+		private void start()
+		{
+			if (dispatcher != null)
+				dispatcher.start();
+		}
+
+		private void stop()
+		{
+			stopped = true;
+			wake();
+		}
+
+		private void wake()
+		{
+			if (waiting)
+				LockSupport.unpark(dispatcher);
+		}
+
+		private void offer(E event)
+		{
+			if (closed || stopped)
+			{
+				droppedCount.increment();
+				return;
+			}
+
+			while (!queue.offer(event))
+			{
+				// the dispatcher can't wait on itself, and nothing drains a closed pipeline
+				if (delivery == Delivery.DROP || closed || stopped
+						|| Thread.currentThread() == dispatcher)
+				{
+					droppedCount.increment();
+					return;
+				}
+				wake();
+				LockSupport.parkNanos(BLOCK_PARK_NANOS);
+			}
+			wake();
+		}
+
+		private void dispatch()
+		{
+			while (!stopped)
+			{
+				E event = queue.poll();
+				if (event != null)
+				{
+					deliver(event);
+					continue;
+				}
+
+				if (closed && queue.isEmpty())
+					return;
+
+				// firing threads check this after queueing, so set it before the last look
+				waiting = true;
+				if (queue.isEmpty() && !closed && !stopped)
+					LockSupport.park(this);
+				waiting = false;
+			}
+		}
+
+		private void deliver(E event)
+		{
+			try
+			{
+				deliverer.accept(listener, event);
+				deliveredCount.increment();
+			}
+			catch (RuntimeException e)
+			{
+				failedCount.increment();
+				// only the first failure, so a broken listener doesn't flood the console
+				if (!failed)
+				{
+					failed = true;
+					System.err.println(name + " listener " + listener + " failed: " + e);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * A bounded queue that many threads add to and one thread takes from,
+	 * without locks. Adding claims a slot by advancing the tail; taking empties
+	 * the slot before advancing the head, so a slot is only claimed again once
+	 * it is free.
+	 */
+	private static class EventQueue<T>
+	{
+
+		private final AtomicReferenceArray<T> slots;
+		private final int mask;
+		private final AtomicLong tail = new AtomicLong();
+		// only written by the taking thread
+		private volatile long head;
+
+		private EventQueue(int capacity)
+		{
+			slots = new AtomicReferenceArray<T>(capacity);
+			mask = capacity - 1;
+		}
+
+		private boolean offer(T item)
+		{
+			while (true)
+			{
+				long claimed = tail.get();
+				if (claimed - head >= slots.length())
+					return false;
+				if (tail.compareAndSet(claimed, claimed + 1))
+				{
+					slots.set((int) claimed & mask, item);
+					return true;
+				}
+			}
+		}
+
+		private T poll()
+		{
+			long taken = head;
+			int slot = (int) taken & mask;
+			T item = slots.get(slot);
+			if (item == null)
+				return null;
+
+			slots.lazySet(slot, null);
+			head = taken + 1;
+			return item;
+		}
+
+		private boolean isEmpty()
+		{
+			return tail.get() == head;
+		}
+
+		private int size()
+		{
+			return (int) Math.max(tail.get() - head, 0);
+		}
+
+	}
+
+}
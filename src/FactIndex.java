@@ -0,0 +1,241 @@
+import java.util.Arrays;
+
+/**
+ * How fast and how accurately a student answers each fact, keyed by operation
+ * and operands. Each fact keeps an exponentially decayed mean response time and
+ * accuracy, so recent answers count most and old history fades out.
+ * <p>
+ * Facts are kept in an open-addressing hash table of primitive arrays, so a
+ * lookup or update is constant time however much history there is, and
+ * nothing is allocated unless the table grows. The index is not thread safe;
+ * use it from one thread at a time, such as the event dispatch thread.
+ */
+public class FactIndex
+{
+
+	/**
+	 * How much each new answer counts, from 0 to 1, unless another is given.
+	 */
+	public static final double DEFAULT_DECAY = 0.3;
+
+	private static final long EMPTY = -1;
+	private static final int OPERAND_BITS = 24;
+	private static final int INITIAL_CAPACITY = 64;
+	// how many of the latest answers are remembered for getRecorded
+	private static final int JOURNAL_SIZE = 64;
+
+	private final double decay;
+
+	private long[] keys;
+	private double[] meanNanos;
+	private double[] accuracy;
+	private int[] counts;
+	private int size;
+
+	private double overallMeanNanos;
+	private long recordCount;
+	private long version;
+	private final Problem[] journal = new Problem[JOURNAL_SIZE];
+
+	/**
+	 * Initializes an empty FactIndex with the default decay.
+	 */
+	public FactIndex()
+	{
+		this(DEFAULT_DECAY);
+	}
+	/**
+	 * Initializes an empty FactIndex.
+	 * @param decay How much each new answer counts, from 0 (never changes) to 1
+	 * (only the last answer counts).
+	 */
+	public FactIndex(double decay)
+	{
+		if (decay <= 0 || decay > 1)
+			throw new IllegalArgumentException("Decay must be more than 0 and at most 1");
+
+		this.decay = decay;
+		allocate(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Records an answered problem.
+	 * @param problem The problem.
+	 * @param correct Whether it was answered correctly.
+	 * @param nanos The time taken in nanoseconds.
+	 */
+	public void record(Problem problem, boolean correct, long nanos)
+	{
+		if (size * 2 >= keys.length)
+			allocate(keys.length * 2);
+
+		long key = keyOf(problem);
+		int slot = find(key);
+		double score = correct ? 1 : 0;
+
+		if (keys[slot] == EMPTY)
+		{
+			keys[slot] = key;
+			meanNanos[slot] = nanos;
+			accuracy[slot] = score;
+			++size;
+		}
+		else
+		{
+			meanNanos[slot] += decay * (nanos - meanNanos[slot]);
+			accuracy[slot] += decay * (score - accuracy[slot]);
+		}
+		++counts[slot];
+
+		if (recordCount == 0)
+			overallMeanNanos = nanos;
+		else
+			overallMeanNanos += decay * (nanos - overallMeanNanos);
+		++recordCount;
+		journal[(int) (version % JOURNAL_SIZE)] = problem;
+		++version;
+	}
+
+	/**
+	 * Gets whether a fact has been answered.
+	 * @param problem The fact.
+	 * @return Whether it has any history.
+	 */
+	public boolean contains(Problem problem)
+	{
+		return keys[find(keyOf(problem))] != EMPTY;
+	}
+	/**
+	 * Gets the decayed mean time taken on a fact.
+	 * @param problem The fact.
+	 * @return The time in nanoseconds, or NaN if it hasn't been answered.
+	 */
+	public double getMeanNanos(Problem problem)
+	{
+		int slot = find(keyOf(problem));
+		return keys[slot] == EMPTY ? Double.NaN : meanNanos[slot];
+	}
+	/**
+	 * Gets the decayed accuracy on a fact.
+	 * @param problem The fact.
+	 * @return The accuracy from 0 to 1, or NaN if it hasn't been answered.
+	 */
+	public double getAccuracy(Problem problem)
+	{
+		int slot = find(keyOf(problem));
+		return keys[slot] == EMPTY ? Double.NaN : accuracy[slot];
+	}
+	/**
+	 * Gets the number of times a fact has been answered.
+	 * @param problem The fact.
+	 * @return The count.
+	 */
+	public int getCount(Problem problem)
+	{
+		int slot = find(keyOf(problem));
+		return keys[slot] == EMPTY ? 0 : counts[slot];
+	}
+
+	/**
+	 * Gets the decayed mean time taken over all facts.
+	 * @return The time in nanoseconds, or NaN if nothing has been answered.
+	 */
+	public double getOverallMeanNanos()
+	{
+		return recordCount == 0 ? Double.NaN : overallMeanNanos;
+	}
+	/**
+	 * Gets the number of different facts answered.
+	 * @return The number of facts.
+	 */
+	public int size()
+	{
+		return size;
+	}
+	/**
+	 * Estimates the memory the index holds.
+	 * @return The size in bytes.
+	 */
+	public long getEstimatedBytes()
+	{
+		// a key, mean, accuracy, and count for every slot, plus the array headers
+		return (long) keys.length * (8 + 8 + 8 + 4) + 4 * 16;
+	}
+	/**
+	 * Gets a number that changes every time an answer is recorded, so callers
+	 * can tell when anything they worked out from the index is stale.
+	 * @return The version.
+	 */
+	public long getVersion()
+	{
+		return version;
+	}
+	/**
+	 * Gets the problem whose answer moved the index on from a version, so
+	 * callers can update just what that fact changed. Only the latest answers
+	 * are remembered.
+	 * @param version The version.
+	 * @return The problem, or null if the index hasn't moved on from the version
+	 * or it was too long ago.
+	 */
+	public Problem getRecorded(long version)
+	{
+		if (version < 0 || version >= this.version || this.version - version > JOURNAL_SIZE)
+			return null;
+		return journal[(int) (version % JOURNAL_SIZE)];
+	}
+
+	/**
+	 * Gets the key a fact is stored under, which is the same for every problem
+	 * with the same operation and operands.
+	 * @param problem The fact.
+	 * @return The key.
+	 */
+	static long keyOf(Problem problem)
+	{
+		long first = problem.getFirstNum() & ((1L << OPERAND_BITS) - 1);
+		long second = problem.getSecondNum() & ((1L << OPERAND_BITS) - 1);
+		return (long) problem.getType().ordinal() << (2 * OPERAND_BITS)
+				| first << OPERAND_BITS | second;
+	}
+
+	private int find(long key)
+	{
+		int mask = keys.length - 1;
+		// spread the bits since operands are small and close together
+		int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		while (keys[slot] != EMPTY && keys[slot] != key)
+			slot = (slot + 1) & mask;
+		return slot;
+	}
+
+	private void allocate(int capacity)
+	{
+		long[] oldKeys = keys;
+		double[] oldMeanNanos = meanNanos;
+		double[] oldAccuracy = accuracy;
+		int[] oldCounts = counts;
+
+		keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		meanNanos = new double[capacity];
+		accuracy = new double[capacity];
+		counts = new int[capacity];
+
+		if (oldKeys == null)
+			return;
+
+		for (int i = 0; i < oldKeys.length; ++i)
+		{
+			if (oldKeys[i] != EMPTY)
+			{
+				int slot = find(oldKeys[i]);
+				keys[slot] = oldKeys[i];
+				meanNanos[slot] = oldMeanNanos[i];
+				accuracy[slot] = oldAccuracy[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+}
@@ -0,0 +1,141 @@
+import java.util.SplittableRandom;
+
+/**
+ * Picks indices at random in proportion to weights that can change, using a
+ * Fenwick tree of the weights' running totals. Changing a weight or picking an
+ * index takes time logarithmic in the number of weights, and building the tree
+ * takes linear time.
+ */
+public class FenwickSampler
+{
+
+	private final double[] weights;
+	// tree[i] is the total of the weights from i - (i & -i) up to i - 1
+	private final double[] tree;
+	private final int topBit;
+
+	/**
+	 * Builds a sampler for the given weights.
+	 * @param weights The weights, which must not be negative and must not all be 0.
+	 */
+	public FenwickSampler(double[] weights)
+	{
+		int n = weights.length;
+		if (n == 0)
+			throw new IllegalArgumentException("At least one weight is needed");
+
+		this.weights = new double[n];
+		tree = new double[n + 1];
+		for (int i = 0; i < n; ++i)
+		{
+			checkWeight(weights[i]);
+			this.weights[i] = weights[i];
+			tree[i + 1] += weights[i];
+			// pass the total up, so every node is done before its parent
+			int parent = (i + 1) + ((i + 1) & -(i + 1));
+			if (parent <= n)
+				tree[parent] += tree[i + 1];
+		}
+		topBit = Integer.highestOneBit(n);
+
+		if (!(getTotal() > 0))
+			throw new IllegalArgumentException("At least one weight must be more than 0");
+	}
+
+	/**
+	 * Copies a sampler, so the copy's weights can be changed without changing
+	 * the original's.
+	 * @param sampler The sampler to copy.
+	 */
+	public FenwickSampler(FenwickSampler sampler)
+	{
+		weights = sampler.weights.clone();
+		tree = sampler.tree.clone();
+		topBit = sampler.topBit;
+	}
+
+	/**
+	 * Gets the number of weights.
+	 * @return The size.
+	 */
+	public int size()
+	{
+		return weights.length;
+	}
+
+	/**
+	 * Gets a weight.
+	 * @param index The index.
+	 * @return The weight.
+	 */
+	public double getWeight(int index)
+	{
+		return weights[index];
+	}
+
+	/**
+	 * Changes a weight.
+	 * @param index The index.
+	 * @param weight The new weight, which must not be negative. The weights must
+	 * not all be 0 when picking.
+	 */
+	public void setWeight(int index, double weight)
+	{
+		checkWeight(weight);
+		double change = weight - weights[index];
+		weights[index] = weight;
+		for (int i = index + 1; i < tree.length; i += i & -i)
+			tree[i] += change;
+	}
+
+	/**
+	 * Gets the total of the weights.
+	 * @return The total.
+	 */
+	public double getTotal()
+	{
+		double total = 0;
+		for (int i = weights.length; i > 0; i -= i & -i)
+			total += tree[i];
+		return total;
+	}
+
+	/**
+	 * Picks an index.
+	 * @param rng The random number generator.
+	 * @return An index, picked in proportion to its weight.
+	 */
+	public int sample(SplittableRandom rng)
+	{
+		double target = rng.nextDouble() * getTotal();
+
+		// find the last index whose running total before it is at most the target
+		int index = 0;
+		for (int bit = topBit; bit > 0; bit >>= 1)
+		{
+			int next = index + bit;
+			if (next < tree.length && tree[next] <= target)
+			{
+				index = next;
+				target -= tree[next];
+			}
+		}
+
+		// rounding can carry the target past the last weight, or onto a 0 weight
+		index = Math.min(index, weights.length - 1);
+		for (int i = index; i >= 0; --i)
+			if (weights[i] > 0)
+				return i;
+		for (int i = index + 1; i < weights.length; ++i)
+			if (weights[i] > 0)
+				return i;
+		throw new IllegalStateException("All the weights are 0");
+	}
+
+	private static void checkWeight(double weight)
+	{
+		if (!(weight >= 0) || Double.isInfinite(weight))
+			throw new IllegalArgumentException("Bad weight " + weight);
+	}
+
+}
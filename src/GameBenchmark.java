@@ -0,0 +1,661 @@
+import java.awt.Graphics2D;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Measures the game's hot paths so that changes can be compared between runs.
+ * <p>
+ * Each benchmark is run for a number of warmup iterations and then measured
+ * iterations of fixed length, on the event dispatch thread like the real game.
+ * Results are printed and written to a JSON file laid out like JMH's
+ * ({@code benchmark}, {@code params}, {@code primaryMetric}), or to a CSV file
+ * if the output file name ends in ".csv". Run it with
+ * {@code -Djava.awt.headless=true} on a machine without a display.
+ */
+public class GameBenchmark
+{
+
+	private static final int[] DEFAULT_GRID_SIZES = { 2, 3, 4 };
+	private static final int[][] DEFAULT_IMAGE_SIZES = { { 800, 600 }, { 1920, 1080 } };
+	private static final int DEFAULT_WARMUP_ITERATIONS = 3;
+	private static final int DEFAULT_ITERATIONS = 5;
+	private static final long DEFAULT_ITERATION_MILLIS = 500;
+	private static final String DEFAULT_OUTPUT = "benchmark-results.json";
+
+	private static final int NUM_FAMILY = 7;
+
+	// written by benchmarks so their results can't be optimized away
+	private static volatile long sink;
+
+	private final int warmupIterations;
+	private final int iterations;
+	private final long iterationNanos;
+	private final List<Result> results = new ArrayList<Result>();
+
+	/**
+	 * Initializes a GameBenchmark.
+	 * @param warmupIterations The number of unmeasured iterations.
+	 * @param iterations The number of measured iterations.
+	 * @param iterationMillis The length of each iteration in milliseconds.
+	 */
+	public GameBenchmark(int warmupIterations, int iterations, long iterationMillis)
+	{
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		this.iterationNanos = iterationMillis * 1000000L;
+	}
+
+	/**
+	 * Gets the results measured so far.
+	 * @return The results.
+	 */
+	public List<Result> getResults()
+	{
+		return results;
+	}
+
+	/**
+	 * Measures splitting the game image into tiles and handing them to the
+	 * problem panels.
+	 * @param gridSize The number of tiles on each side.
+	 * @param width The image width.
+	 * @param height The image height.
+	 */
+	public void splitImage(int gridSize, int width, int height)
+	{
+		run("splitImage", params(gridSize, width, height));
+	}
+
+	/**
+	 * Measures picking a new random problem for a panel.
+	 */
+	public void resetProblem()
+	{
+		run("resetProblem", new LinkedHashMap<String, String>());
+	}
+
+	/**
+	 * Measures painting one problem panel in a state into an offscreen image.
+	 * @param state The state to paint.
+	 * @param gridSize The number of tiles on each side.
+	 * @param width The board width.
+	 * @param height The board height.
+	 */
+	public void paint(PanelState state, int gridSize, int width, int height)
+	{
+		Map<String, String> params = params(gridSize, width, height);
+		params.put("state", state.name());
+		run("paintComponent", params);
+	}
+
+	/**
+	 * Measures typing a digit and then backspacing it on an open problem.
+	 * @param gridSize The number of tiles on each side.
+	 */
+	public void keyPressed(int gridSize)
+	{
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		params.put("gridSize", Integer.toString(gridSize));
+		run("keyPressed", params);
+	}
+
+	/**
+	 * Measures reading the stats the viewer shows for a finished game.
+	 * @param gridSize The number of tiles on each side.
+	 */
+	public void gameCompleted(int gridSize)
+	{
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		params.put("gridSize", Integer.toString(gridSize));
+		run("gameCompleted", params);
+	}
+
+	/**
+	 * Measures firing a problem event at a listener that takes about 10
+	 * microseconds, like a logger, as seen by the thread that fires it.
+	 * @param delivery How the listener is told.
+	 */
+	public void fireEvent(Delivery delivery)
+	{
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		params.put("delivery", delivery.name());
+		run("fireEvent", params);
+	}
+
+	/**
+	 * Sets up a benchmark's operation. This is what both this runner and the
+	 * JMH benchmarks measure. Call it on the event dispatch thread, and close
+	 * the workload when it has been measured.
+	 * @param benchmark The benchmark name, such as "paintComponent".
+	 * @param params The parameters: gridSize, imageSize (such as "800x600"),
+	 * state, or delivery, as the benchmark needs.
+	 * @return The workload.
+	 */
+	public static Workload createWorkload(String benchmark, Map<String, String> params)
+	{
+		switch (benchmark)
+		{
+			case "splitImage":
+				return createSplitImage(getInt(params, "gridSize"),
+						getImageSize(params)[0], getImageSize(params)[1]);
+			case "resetProblem":
+				return createResetProblem();
+			case "paintComponent":
+				return createPaint(PanelState.valueOf(params.get("state")), getInt(params, "gridSize"),
+						getImageSize(params)[0], getImageSize(params)[1]);
+			case "keyPressed":
+				return createKeyPressed(getInt(params, "gridSize"));
+			case "gameCompleted":
+				return createGameCompleted(getInt(params, "gridSize"));
+			case "fireEvent":
+				return createFireEvent(Delivery.valueOf(params.get("delivery")));
+			default:
+				throw new IllegalArgumentException("Unknown benchmark " + benchmark);
+		}
+	}
+
+	private static Workload createSplitImage(int gridSize, int width, int height)
+	{
+		BufferedImage image = createImage(width, height);
+		MathGamePanel game = createGame(gridSize, width, height, image);
+		return new Workload(() -> game.setimage(image), game::dispose);
+	}
+
+	private static Workload createResetProblem()
+	{
+		MathGamePanel game = createGame(2, 400, 300, null);
+		MathProblemPanel panel = game.getProblemPanel(0);
+		return new Workload(() -> panel.resetProblem(), game::dispose);
+	}
+
+	private static Workload createPaint(PanelState state, int gridSize, int width, int height)
+	{
+		MathGamePanel game = createGame(gridSize, width, height, createImage(width, height));
+		MathProblemPanel panel = game.getProblemPanel(0);
+		GameModel model = game.getModel();
+
+		if (state != PanelState.COVER)
+			model.open(0, System.nanoTime());
+		if (state == PanelState.IMAGE)
+		{
+			typeNumber(model, model.getProblem(0).getAnswer());
+			model.submit(0, System.nanoTime());
+			model.reveal(0);
+		}
+
+		BufferedImage canvas = new BufferedImage(panel.getWidth(), panel.getHeight(),
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2 = canvas.createGraphics();
+		return new Workload(() -> panel.paintComponent(g2), () ->
+		{
+			g2.dispose();
+			game.dispose();
+		});
+	}
+
+	private static Workload createKeyPressed(int gridSize)
+	{
+		MathGamePanel game = createGame(gridSize, 800, 600, null);
+		MathProblemPanel panel = game.getProblemPanel(0);
+		panel.mousePressed(new MouseEvent(panel, MouseEvent.MOUSE_PRESSED,
+				0, 0, 1, 1, 1, false));
+
+		KeyEvent digit = new KeyEvent(panel, KeyEvent.KEY_PRESSED, 0, 0,
+				KeyEvent.VK_1, '1');
+		KeyEvent backspace = new KeyEvent(panel, KeyEvent.KEY_PRESSED, 0, 0,
+				KeyEvent.VK_BACK_SPACE, '\b');
+		return new Workload(() ->
+		{
+			panel.keyPressed(digit);
+			panel.keyPressed(backspace);
+		}, game::dispose);
+	}
+
+	private static Workload createGameCompleted(int gridSize)
+	{
+		Problem problem = new Problem(ProblemType.ADDITION, 5, NUM_FAMILY);
+		GameResults results = new GameResults(gridSize * gridSize);
+		for (int i = 0; i < gridSize * gridSize; ++i)
+			results.add(problem, problem.getAnswer(), i % 3 != 0, i % 3 != 0 ? 1 : 2,
+					1000000000L + (i * 7919L) % 100000);
+
+		return new Workload(() -> sink += results.getCorrectCount() + results.getAverageNanos()
+				+ results.getMedianNanos() + results.getPercentileNanos(0.9)
+				+ results.getTriesCount(2), () -> { });
+	}
+
+	private static Workload createFireEvent(Delivery delivery)
+	{
+		EventPipeline<ProblemPanelListener, ProblemPanelEvent> pipeline
+				= new EventPipeline<ProblemPanelListener, ProblemPanelEvent>(
+						"benchmark-events", ProblemPanelListener::problemCompleted);
+		pipeline.add(e ->
+		{
+			long endNanos = System.nanoTime() + 10000;
+			while (System.nanoTime() < endNanos)
+				sink += e.getTriesTaken();
+		}, delivery);
+
+		Problem problem = new Problem(ProblemType.ADDITION, 5, NUM_FAMILY);
+		ProblemPanelEvent event = new ProblemPanelEvent(null, problem,
+				problem.getAnswer(), true, 1, 1000000000L);
+		return new Workload(() -> pipeline.fire(event), pipeline::close);
+	}
+
+	private static Map<String, String> params(int gridSize, int width, int height)
+	{
+		Map<String, String> params = new LinkedHashMap<String, String>();
+		params.put("gridSize", Integer.toString(gridSize));
+		params.put("imageSize", width + "x" + height);
+		return params;
+	}
+
+	private static int getInt(Map<String, String> params, String name)
+	{
+		String value = params.get(name);
+		if (value == null)
+			throw new IllegalArgumentException("Missing parameter " + name);
+		return Integer.parseInt(value);
+	}
+
+	private static int[] getImageSize(Map<String, String> params)
+	{
+		String value = params.get("imageSize");
+		if (value == null)
+			throw new IllegalArgumentException("Missing parameter imageSize");
+		String[] dimensions = value.split("x");
+		return new int[] { Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]) };
+	}
+
+	private static BufferedImage createImage(int width, int height)
+	{
+		BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		int[] row = new int[width];
+		for (int y = 0; y < height; ++y)
+		{
+			for (int x = 0; x < width; ++x)
+				row[x] = (x * 255 / width) << 16 | (y * 255 / height) << 8 | (x ^ y) & 0xFF;
+			image.setRGB(0, y, width, 1, row, 0, width);
+		}
+		return image;
+	}
+
+	private static MathGamePanel createGame(int gridSize, int width, int height,
+			BufferedImage image)
+	{
+		MathGamePanel game = new MathGamePanel(
+				new ArrayList<ProblemType>(Arrays.asList(ProblemType.values())),
+				gridSize, NUM_FAMILY, image);
+		game.setSize(width, height);
+		game.doLayout();
+		return game;
+	}
+
+	private static void typeNumber(GameModel model, int number)
+	{
+		for (char c : Integer.toString(number).toCharArray())
+			model.typeDigit(0, c - '0');
+	}
+
+	/**
+	 * Sets up and measures one benchmark on the event dispatch thread, then
+	 * throws its setup away so its game's threads and timers don't run on
+	 * into the next benchmark.
+	 * @param name The benchmark name.
+	 * @param params The parameters it is set up with.
+	 */
+	private void run(String name, Map<String, String> params)
+	{
+		try
+		{
+			SwingUtilities.invokeAndWait(() ->
+			{
+				try (Workload op = createWorkload(name, params))
+				{
+					for (int i = 0; i < warmupIterations; ++i)
+						iterate(op);
+
+					double[] nanosPerOp = new double[iterations];
+					for (int i = 0; i < iterations; ++i)
+						nanosPerOp[i] = iterate(op);
+
+					Result result = new Result(name, params, nanosPerOp);
+					results.add(result);
+					System.out.println(result);
+				}
+			});
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Benchmark interrupted", e);
+		}
+		catch (InvocationTargetException e)
+		{
+			throw new IllegalStateException("Benchmark " + name + " failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Runs an operation in growing batches until the iteration time is up.
+	 * @param op The operation.
+	 * @return The mean time of one operation in nanoseconds.
+	 */
+	private double iterate(Runnable op)
+	{
+		long ops = 0;
+		long batch = 1;
+		long startNanos = System.nanoTime();
+		long elapsedNanos;
+		do
+		{
+			for (long i = 0; i < batch; ++i)
+				op.run();
+			ops += batch;
+			elapsedNanos = System.nanoTime() - startNanos;
+
+			// keep the clock out of the measurement for fast operations
+			if (elapsedNanos < iterationNanos / 100)
+				batch *= 2;
+		}
+		while (elapsedNanos < iterationNanos);
+
+		return (double) elapsedNanos / ops;
+	}
+
+	/**
+	 * Writes the results as JSON, or as CSV if the file name ends in ".csv".
+	 * @param file The file to write.
+	 * @throws IOException If the file can't be written.
+	 */
+	public void write(File file) throws IOException
+	{
+		try (PrintWriter out = new PrintWriter(new OutputStreamWriter(
+				new FileOutputStream(file), StandardCharsets.UTF_8)))
+		{
+			if (file.getName().endsWith(".csv"))
+			{
+				out.println("benchmark,params,score,scoreError,min,max,unit");
+				for (Result result : results)
+					out.println(result.toCsv());
+			}
+			else
+			{
+				out.println("[");
+				for (int i = 0; i < results.size(); ++i)
+					out.println(results.get(i).toJson() + (i + 1 < results.size() ? "," : ""));
+				out.println("]");
+			}
+		}
+	}
+
+	/**
+	 * An operation to measure, and how to throw away what it was set up with.
+	 */
+	public static class Workload implements Runnable, AutoCloseable
+	{
+
+		private final Runnable op;
+		private final Runnable cleanup;
+
+		private Workload(Runnable op, Runnable cleanup)
+		{
+			this.op = op;
+			this.cleanup = cleanup;
+		}
+
+		/**
+		 * Runs the operation once.
+		 */
+		@Override
+		public void run()
+		{
+			op.run();
+		}
+
+		/**
+		 * Throws the setup away, such as the game and its scheduler thread.
+		 */
+		@Override
+		public void close()
+		{
+			cleanup.run();
+		}
+
+	}
+
+	/**
+	 * The measurements of one benchmark with one set of parameters.
+	 */
+	public static class Result
+	{
+
+		private final String benchmark;
+		private final Map<String, String> params;
+		private final double[] nanosPerOp;
+		private final double mean;
+		private final double error;
+
+		private Result(String benchmark, Map<String, String> params, double[] nanosPerOp)
+		{
+			this.benchmark = benchmark;
+			this.params = params;
+			this.nanosPerOp = nanosPerOp;
+
+			double sum = 0;
+			for (double nanos : nanosPerOp)
+				sum += nanos;
+			mean = sum / nanosPerOp.length;
+
+			double squares = 0;
+			for (double nanos : nanosPerOp)
+				squares += (nanos - mean) * (nanos - mean);
+			// about a 95% confidence interval
+			error = nanosPerOp.length > 1
+					? 2 * Math.sqrt(squares / (nanosPerOp.length - 1) / nanosPerOp.length)
+					: Double.NaN;
+		}
+
+		/**
+		 * Gets the benchmark name.
+		 * @return The name.
+		 */
+		public String getBenchmark()
+		{
+			return benchmark;
+		}
+		/**
+		 * Gets the parameters the benchmark was set up with.
+		 * @return The parameters by name.
+		 */
+		public Map<String, String> getParams()
+		{
+			return params;
+		}
+		/**
+		 * Gets the mean time of one operation.
+		 * @return The time in nanoseconds.
+		 */
+		public double getScore()
+		{
+			return mean;
+		}
+		/**
+		 * Gets the margin of error of the score.
+		 * @return The error in nanoseconds.
+		 */
+		public double getScoreError()
+		{
+			return error;
+		}
+
+		private double getMin()
+		{
+			double min = Double.MAX_VALUE;
+			for (double nanos : nanosPerOp)
+				min = Math.min(min, nanos);
+			return min;
+		}
+		private double getMax()
+		{
+			double max = 0;
+			for (double nanos : nanosPerOp)
+				max = Math.max(max, nanos);
+			return max;
+		}
+
+		private String toJson()
+		{
+			StringBuilder json = new StringBuilder();
+			json.append("  {\"benchmark\": \"").append(benchmark).append("\", \"params\": {");
+			String separator = "";
+			for (Map.Entry<String, String> param : params.entrySet())
+			{
+				json.append(separator).append('"').append(param.getKey()).append("\": \"")
+						.append(param.getValue()).append('"');
+				separator = ", ";
+			}
+			json.append("}, \"primaryMetric\": {\"score\": ").append(mean)
+					.append(", \"scoreError\": ").append(Double.isNaN(error) ? "null" : Double.toString(error))
+					.append(", \"scoreUnit\": \"ns/op\", \"rawData\": [");
+			for (int i = 0; i < nanosPerOp.length; ++i)
+				json.append(i > 0 ? ", " : "").append(nanosPerOp[i]);
+			json.append("]}}");
+			return json.toString();
+		}
+
+		private String toCsv()
+		{
+			StringBuilder paramText = new StringBuilder();
+			for (Map.Entry<String, String> param : params.entrySet())
+			{
+				if (paramText.length() > 0)
+					paramText.append(';');
+				paramText.append(param.getKey()).append('=').append(param.getValue());
+			}
+			return String.format("%s,%s,%.1f,%.1f,%.1f,%.1f,ns/op", benchmark, paramText,
+					mean, error, getMin(), getMax());
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("%-16s %-44s %14.1f +- %10.1f ns/op",
+					benchmark, params, mean, error);
+		}
+
+	}
+
+	/**
+	 * Runs all the benchmarks and writes the results.
+	 * @param args [-grids 2,3,4] [-images 800x600,1920x1080] [-warmup N]
+	 * [-iterations N] [-time MS] [-out FILE]
+	 */
+	public static void main(String[] args)
+	{
+		int[] gridSizes = DEFAULT_GRID_SIZES;
+		int[][] imageSizes = DEFAULT_IMAGE_SIZES;
+		int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+		int iterations = DEFAULT_ITERATIONS;
+		long iterationMillis = DEFAULT_ITERATION_MILLIS;
+		File output = new File(DEFAULT_OUTPUT);
+
+		try
+		{
+			for (int i = 0; i < args.length; ++i)
+			{
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("Missing value for " + args[i]);
+
+				switch (args[i])
+				{
+					case "-grids":
+					{
+						String[] sizes = args[++i].split(",");
+						gridSizes = new int[sizes.length];
+						for (int j = 0; j < sizes.length; ++j)
+							gridSizes[j] = Integer.parseInt(sizes[j]);
+						break;
+					}
+					case "-images":
+					{
+						String[] sizes = args[++i].split(",");
+						imageSizes = new int[sizes.length][];
+						for (int j = 0; j < sizes.length; ++j)
+						{
+							String[] dimensions = sizes[j].split("x");
+							imageSizes[j] = new int[] { Integer.parseInt(dimensions[0]),
+									Integer.parseInt(dimensions[1]) };
+						}
+						break;
+					}
+					case "-warmup":
+						warmupIterations = Integer.parseInt(args[++i]);
+						break;
+					case "-iterations":
+						iterations = Integer.parseInt(args[++i]);
+						break;
+					case "-time":
+						iterationMillis = Long.parseLong(args[++i]);
+						break;
+					case "-out":
+						output = new File(args[++i]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		}
+		catch (RuntimeException e)
+		{
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java GameBenchmark [-grids 2,3,4] [-images 800x600,1920x1080]"
+					+ " [-warmup N] [-iterations N] [-time MS] [-out results.json|results.csv]");
+			System.exit(1);
+		}
+
+		GameBenchmark benchmark = new GameBenchmark(warmupIterations, iterations, iterationMillis);
+
+		benchmark.resetProblem();
+		for (Delivery delivery : Delivery.values())
+			benchmark.fireEvent(delivery);
+		for (int gridSize : gridSizes)
+		{
+			benchmark.keyPressed(gridSize);
+			benchmark.gameCompleted(gridSize);
+			for (int[] imageSize : imageSizes)
+			{
+				benchmark.splitImage(gridSize, imageSize[0], imageSize[1]);
+				for (PanelState state : PanelState.values())
+					benchmark.paint(state, gridSize, imageSize[0], imageSize[1]);
+			}
+		}
+
+		try
+		{
+			benchmark.write(output);
+			System.out.println("Results written to " + output.getAbsolutePath());
+		}
+		catch (IOException e)
+		{
+			System.err.println("Couldn't write " + output + ": " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+}
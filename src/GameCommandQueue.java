@@ -0,0 +1,134 @@
+import java.awt.Rectangle;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * The one queue of state changes for a game. Commands posted from any thread,
+ * such as timer callbacks and loaded images, are applied in order on the event
+ * dispatch thread, so the game's state is only ever touched there.
+ * <p>
+ * Repaints are merged too. Every repaint asked for while the event dispatch
+ * thread handles one event or one batch of commands is collected per
+ * component, and each component is repainted once with the union of its
+ * regions when the batch is over. So a sweep that changes many panels at once
+ * costs one repaint request each, not one per change.
+ */
+public class GameCommandQueue implements Executor
+{
+
+	private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<Runnable>();
+	private final AtomicBoolean drainPending = new AtomicBoolean();
+
+	// only used on the event dispatch thread
+	private final Map<JComponent, Rectangle> dirtyRegions = new LinkedHashMap<JComponent, Rectangle>();
+	private long requestCount;
+
+	/**
+	 * Posts a command to run on the event dispatch thread after the ones
+	 * already posted.
+	 * @param command The command.
+	 */
+	public void post(Runnable command)
+	{
+		commands.add(command);
+		scheduleDrain();
+	}
+	/**
+	 * Posts a command. The same as {@link #post(Runnable)}, so the queue can be
+	 * passed where an Executor is wanted.
+	 */
+	@Override
+	public void execute(Runnable command)
+	{
+		post(command);
+	}
+
+	/**
+	 * Asks for a whole component to be repainted once the current batch is over.
+	 * @param component The component.
+	 */
+	public void repaint(JComponent component)
+	{
+		repaint(component, 0, 0, component.getWidth(), component.getHeight());
+	}
+	/**
+	 * Asks for part of a component to be repainted once the current batch is
+	 * over.
+	 * @param component The component.
+	 * @param x The left of the region.
+	 * @param y The top of the region.
+	 * @param width The width of the region.
+	 * @param height The height of the region.
+	 */
+	public void repaint(JComponent component, int x, int y, int width, int height)
+	{
+		if (!SwingUtilities.isEventDispatchThread())
+		{
+			post(() -> repaint(component, x, y, width, height));
+			return;
+		}
+
+		++requestCount;
+		Rectangle region = dirtyRegions.get(component);
+		if (region == null)
+		{
+			dirtyRegions.put(component, new Rectangle(x, y, width, height));
+			scheduleDrain();
+		}
+		else
+			region.add(new Rectangle(x, y, width, height));
+	}
+
+	/**
+	 * Runs the posted commands and the repaints they asked for now. Only call
+	 * this on the event dispatch thread.
+	 */
+	public void flush()
+	{
+		drainPending.set(false);
+
+		Runnable command;
+		while ((command = commands.poll()) != null)
+			command.run();
+
+		if (dirtyRegions.isEmpty())
+			return;
+
+		for (Map.Entry<JComponent, Rectangle> entry : dirtyRegions.entrySet())
+		{
+			JComponent component = entry.getKey();
+			Rectangle region = entry.getValue();
+			if (region.x <= 0 && region.y <= 0 && region.x + region.width >= component.getWidth()
+					&& region.y + region.height >= component.getHeight())
+				component.repaint();
+			else
+				component.repaint(region);
+		}
+
+		RenderMetrics.get().recordRepaints(requestCount, dirtyRegions.size());
+		requestCount = 0;
+		dirtyRegions.clear();
+	}
+
+	/**
+	 * Gets the number of commands waiting to run.
+	 * @return The number of commands.
+	 */
+	public int getQueuedCount()
+	{
+		return commands.size();
+	}
+
+	private void scheduleDrain()
+	{
+		if (drainPending.compareAndSet(false, true))
+			SwingUtilities.invokeLater(this::flush);
+	}
+
+}
@@ -0,0 +1,373 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs many headless {@link GameSession}s in one process, one per connection
+ * on a local socket. The protocol is one command line and one reply line at a
+ * time, as described in GameSession.
+ * <p>
+ * The host pushes back in two ways. Once it has as many sessions as it allows,
+ * it stops accepting connections, so new clients wait in the socket backlog
+ * instead of piling up threads. And each session's estimated memory is counted
+ * against a budget: a connection or a new game that would go over it gets
+ * {@code BUSY memory}. Replies are only flushed once a client has no more
+ * commands waiting, so clients that send several commands at once get their
+ * replies in one write.
+ */
+public class GameHost implements Closeable
+{
+
+	/**
+	 * The port the host listens on unless another is given.
+	 */
+	public static final int DEFAULT_PORT = 7171;
+
+	private static final int DEFAULT_MAX_SESSIONS = 1000;
+	private static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+	private static final int BUFFER_SIZE = 1024;
+	// the connection's buffers and socket, counted against the budget
+	private static final long CONNECTION_BYTES = 4 * BUFFER_SIZE + 1024;
+
+	private final int maxSessions;
+	private final long memoryBudget;
+	private final boolean delays;
+
+	private final Semaphore sessionSlots;
+	private final ExecutorService sessionThreads;
+	private final AtomicLong usedBytes = new AtomicLong();
+	private final AtomicInteger activeSessions = new AtomicInteger();
+	private final LongAdder requestCount = new LongAdder();
+	private final LongAdder rejectedCount = new LongAdder();
+
+	private ServerSocket serverSocket;
+	private Thread acceptThread;
+
+	/**
+	 * Initializes a GameHost.
+	 * @param maxSessions The most sessions to run at once.
+	 * @param memoryBudget The most memory all sessions may hold, in bytes.
+	 * @param delays Whether results are shown for as long as in the game window.
+	 */
+	public GameHost(int maxSessions, long memoryBudget, boolean delays)
+	{
+		if (maxSessions < 1)
+			throw new IllegalArgumentException("At least one session must be allowed");
+
+		this.maxSessions = maxSessions;
+		this.memoryBudget = memoryBudget;
+		this.delays = delays;
+
+		sessionSlots = new Semaphore(maxSessions);
+		AtomicInteger threadCount = new AtomicInteger();
+		sessionThreads = Executors.newCachedThreadPool(runnable ->
+		{
+			Thread thread = new Thread(runnable, "game-session-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Starts listening on the loopback address.
+	 * @param port The port, or 0 for any free port.
+	 * @throws IOException If the port can't be opened.
+	 */
+	public synchronized void start(int port) throws IOException
+	{
+		if (serverSocket != null)
+			throw new IllegalStateException("Host is already started");
+
+		serverSocket = new ServerSocket(port, maxSessions, InetAddress.getLoopbackAddress());
+		acceptThread = new Thread(this::acceptConnections, "game-host-accept");
+		acceptThread.setDaemon(true);
+		acceptThread.start();
+	}
+
+	/**
+	 * Gets the port the host is listening on.
+	 * @return The port, or -1 if the host isn't started.
+	 */
+	public synchronized int getPort()
+	{
+		return serverSocket == null ? -1 : serverSocket.getLocalPort();
+	}
+	/**
+	 * Gets the number of sessions running.
+	 * @return The number of sessions.
+	 */
+	public int getActiveSessions()
+	{
+		return activeSessions.get();
+	}
+	/**
+	 * Gets the estimated memory held by all sessions.
+	 * @return The size in bytes.
+	 */
+	public long getUsedBytes()
+	{
+		return usedBytes.get();
+	}
+	/**
+	 * Gets the memory all sessions may hold.
+	 * @return The size in bytes.
+	 */
+	public long getMemoryBudget()
+	{
+		return memoryBudget;
+	}
+	/**
+	 * Gets the number of commands handled.
+	 * @return The number of commands.
+	 */
+	public long getRequestCount()
+	{
+		return requestCount.sum();
+	}
+	/**
+	 * Gets the number of connections and games turned away for lack of memory.
+	 * @return The number turned away.
+	 */
+	public long getRejectedCount()
+	{
+		return rejectedCount.sum();
+	}
+
+	/**
+	 * Stops accepting connections and closes the listening socket. Sessions
+	 * already running end when their clients disconnect.
+	 */
+	@Override
+	public synchronized void close() throws IOException
+	{
+		if (serverSocket != null)
+			serverSocket.close();
+		sessionThreads.shutdown();
+	}
+
+	private void acceptConnections()
+	{
+		try
+		{
+			while (!serverSocket.isClosed())
+			{
+				// wait for a free slot before accepting, so clients queue in the backlog
+				sessionSlots.acquire();
+				Socket socket;
+				try
+				{
+					socket = serverSocket.accept();
+				}
+				catch (IOException e)
+				{
+					sessionSlots.release();
+					throw e;
+				}
+				sessionThreads.execute(() -> serve(socket));
+			}
+		}
+		catch (SocketException e)
+		{
+			// the host was closed
+		}
+		catch (IOException e)
+		{
+			System.err.println("Game host stopped: " + e.getMessage());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void serve(Socket socket)
+	{
+		activeSessions.incrementAndGet();
+		GameSession session = new GameSession(delays);
+		long accountedBytes = 0;
+
+		try (Socket connection = socket)
+		{
+			connection.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					connection.getInputStream(), StandardCharsets.US_ASCII), BUFFER_SIZE);
+			Writer out = new BufferedWriter(new OutputStreamWriter(
+					connection.getOutputStream(), StandardCharsets.US_ASCII), BUFFER_SIZE);
+
+			long startBytes = CONNECTION_BYTES + session.getEstimatedBytes();
+			if (!reserve(startBytes))
+			{
+				rejectedCount.increment();
+				out.write("BUSY memory\n");
+				out.flush();
+				return;
+			}
+			accountedBytes = startBytes;
+
+			String line;
+			while ((line = in.readLine()) != null)
+			{
+				requestCount.increment();
+
+				String reply;
+				long newBytes = getNewGameBytes(session, line);
+				if (newBytes > 0 && !reserve(newBytes - accountedBytes))
+				{
+					rejectedCount.increment();
+					reply = "BUSY memory";
+				}
+				else
+				{
+					if (newBytes > 0)
+						accountedBytes = newBytes;
+					reply = session.handle(line, System.nanoTime());
+
+					// the fact index can grow as the session goes on
+					long actualBytes = CONNECTION_BYTES + session.getEstimatedBytes();
+					usedBytes.addAndGet(actualBytes - accountedBytes);
+					accountedBytes = actualBytes;
+				}
+
+				out.write(reply);
+				out.write('\n');
+				if (!in.ready())
+					out.flush();
+
+				if (reply.equals("BYE"))
+					break;
+			}
+			out.flush();
+		}
+		catch (IOException e)
+		{
+			// the client went away
+		}
+		finally
+		{
+			usedBytes.addAndGet(-accountedBytes);
+			activeSessions.decrementAndGet();
+			sessionSlots.release();
+		}
+	}
+
+	/**
+	 * Gets the memory a session would hold after a NEW command.
+	 * @return The size in bytes, or 0 if the line isn't a valid NEW command.
+	 */
+	private static long getNewGameBytes(GameSession session, String line)
+	{
+		String[] words = line.trim().split("\\s+", 3);
+		if (words.length < 2 || !words[0].equalsIgnoreCase("NEW"))
+			return 0;
+
+		try
+		{
+			return CONNECTION_BYTES + session.getEstimatedBytes(Integer.parseInt(words[1]));
+		}
+		catch (NumberFormatException e)
+		{
+			return 0;
+		}
+	}
+
+	private boolean reserve(long bytes)
+	{
+		while (true)
+		{
+			long used = usedBytes.get();
+			if (bytes > 0 && used + bytes > memoryBudget)
+				return false;
+			if (usedBytes.compareAndSet(used, used + bytes))
+				return true;
+		}
+	}
+
+	/**
+	 * Runs a host until the process is stopped, printing its status.
+	 * @param args [-port N] [-sessions N] [-memory MB] [-nodelay]
+	 */
+	public static void main(String[] args)
+	{
+		int port = DEFAULT_PORT;
+		int maxSessions = DEFAULT_MAX_SESSIONS;
+		long memoryBudget = DEFAULT_MEMORY_BUDGET;
+		boolean delays = true;
+
+		try
+		{
+			for (int i = 0; i < args.length; ++i)
+			{
+				switch (args[i])
+				{
+					case "-nodelay":
+						delays = false;
+						break;
+					case "-port":
+						port = Integer.parseInt(args[++i]);
+						break;
+					case "-sessions":
+						maxSessions = Integer.parseInt(args[++i]);
+						break;
+					case "-memory":
+						memoryBudget = Long.parseLong(args[++i]) << 20;
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		}
+		catch (RuntimeException e)
+		{
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java GameHost [-port N] [-sessions N] [-memory MB] [-nodelay]");
+			System.exit(1);
+		}
+
+		GameHost host = new GameHost(maxSessions, memoryBudget, delays);
+		try
+		{
+			host.start(port);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Couldn't listen on port " + port + ": " + e.getMessage());
+			System.exit(1);
+		}
+		System.out.println("Listening on 127.0.0.1:" + host.getPort());
+
+		long lastRequests = 0;
+		while (true)
+		{
+			try
+			{
+				Thread.sleep(5000);
+			}
+			catch (InterruptedException e)
+			{
+				return;
+			}
+
+			long requests = host.getRequestCount();
+			System.out.printf("%d sessions, %d KB of %d KB, %.0f commands/s, %d turned away%n",
+					host.getActiveSessions(), host.getUsedBytes() >> 10, host.getMemoryBudget() >> 10,
+					(requests - lastRequests) / 5.0, host.getRejectedCount());
+			lastRequests = requests;
+		}
+	}
+
+}
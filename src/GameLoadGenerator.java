@@ -0,0 +1,258 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays games against a {@link GameHost} from many client threads at once and
+ * reports how throughput and latency change with the number of clients. Each
+ * client has its own connection and plays whole games as fast as it can.
+ */
+public class GameLoadGenerator
+{
+
+	private static final int[] DEFAULT_CLIENTS = { 1, 2, 4, 8, 16 };
+	private static final long DEFAULT_SECONDS = 5;
+	private static final int DEFAULT_SIZE = 4;
+	private static final double DEFAULT_ACCURACY = 0.9;
+	private static final String TYPES = "ADDITION,SUBTRACTION,MULTIPLICATION,DIVISION";
+
+	private final String host;
+	private final int port;
+	private final int size;
+	private final double accuracy;
+
+	private final LatencyHistogram latencies = new LatencyHistogram();
+	private final LongAdder games = new LongAdder();
+	private final LongAdder requests = new LongAdder();
+	private final LongAdder busy = new LongAdder();
+
+	/**
+	 * Initializes a GameLoadGenerator.
+	 * @param host The host name.
+	 * @param port The port.
+	 * @param size The number of tiles on each side of the board.
+	 * @param accuracy The chance a client answers correctly, from 0 to 1.
+	 */
+	public GameLoadGenerator(String host, int port, int size, double accuracy)
+	{
+		this.host = host;
+		this.port = port;
+		this.size = size;
+		this.accuracy = accuracy;
+	}
+
+	/**
+	 * Runs clients for a while and prints one line of results.
+	 * @param clients The number of clients.
+	 * @param seconds How long to run.
+	 * @throws InterruptedException If interrupted while waiting for the clients.
+	 */
+	public void run(int clients, long seconds) throws InterruptedException
+	{
+		latencies.reset();
+		games.reset();
+		requests.reset();
+		busy.reset();
+
+		long endNanos = System.nanoTime() + seconds * 1000000000L;
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < clients; ++i)
+		{
+			long seed = i;
+			Thread thread = new Thread(() -> playUntil(endNanos, seed), "load-client-" + i);
+			thread.start();
+			threads.add(thread);
+		}
+		for (Thread thread : threads)
+			thread.join();
+
+		System.out.printf("%4d clients %10.0f games/s %12.0f commands/s %8.1f us p50 %8.1f us p99 %6d busy%n",
+				clients, games.sum() / (double) seconds, requests.sum() / (double) seconds,
+				latencies.getPercentileNanos(0.5) / 1e3, latencies.getPercentileNanos(0.99) / 1e3,
+				busy.sum());
+	}
+
+	private void playUntil(long endNanos, long seed)
+	{
+		SplittableRandom rng = new SplittableRandom(seed);
+
+		try (Socket socket = new Socket(host, port))
+		{
+			socket.setTcpNoDelay(true);
+			BufferedReader in = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), StandardCharsets.US_ASCII));
+			Writer out = new BufferedWriter(new OutputStreamWriter(
+					socket.getOutputStream(), StandardCharsets.US_ASCII));
+
+			while (System.nanoTime() < endNanos)
+			{
+				if (call(in, out, "NEW " + size + " 7 " + TYPES).startsWith("BUSY"))
+				{
+					busy.increment();
+					Thread.sleep(10);
+					continue;
+				}
+
+				for (int tile = 0; tile < size * size; ++tile)
+				{
+					String[] problem = call(in, out, "OPEN " + tile).split(" ");
+					int answer = new Problem(ProblemType.valueOf(problem[2]),
+							Integer.parseInt(problem[3]), Integer.parseInt(problem[4])).getAnswer();
+
+					String reply;
+					do
+					{
+						int given = rng.nextDouble() < accuracy ? answer : answer + 1;
+						reply = call(in, out, "ANSWER " + tile + " " + given);
+					}
+					while (reply.equals("INCORRECT"));
+				}
+				games.increment();
+			}
+
+			call(in, out, "QUIT");
+		}
+		catch (IOException | RuntimeException e)
+		{
+			System.err.println("Client failed: " + e);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Sends a command and reads the reply, waiting and sending it again while
+	 * the host is showing a result.
+	 */
+	private String call(BufferedReader in, Writer out, String command)
+			throws IOException, InterruptedException
+	{
+		while (true)
+		{
+			long startNanos = System.nanoTime();
+			out.write(command);
+			out.write('\n');
+			out.flush();
+
+			String reply = in.readLine();
+			if (reply == null)
+				throw new IOException("Host closed the connection");
+			if (reply.startsWith("ERR"))
+				throw new IllegalStateException(command + ": " + reply);
+
+			latencies.record(System.nanoTime() - startNanos);
+			requests.increment();
+
+			if (!reply.startsWith("WAIT"))
+				return reply;
+			Thread.sleep(Long.parseLong(reply.substring(5)));
+		}
+	}
+
+	/**
+	 * Runs the load test for each number of clients.
+	 * @param args [-host NAME] [-port N] [-clients 1,2,4] [-seconds N] [-size N]
+	 * [-accuracy 0.9] [-embedded]
+	 */
+	public static void main(String[] args)
+	{
+		String host = "127.0.0.1";
+		int port = GameHost.DEFAULT_PORT;
+		int[] clients = DEFAULT_CLIENTS;
+		long seconds = DEFAULT_SECONDS;
+		int size = DEFAULT_SIZE;
+		double accuracy = DEFAULT_ACCURACY;
+		boolean embedded = false;
+
+		try
+		{
+			for (int i = 0; i < args.length; ++i)
+			{
+				switch (args[i])
+				{
+					case "-embedded":
+						embedded = true;
+						break;
+					case "-host":
+						host = args[++i];
+						break;
+					case "-port":
+						port = Integer.parseInt(args[++i]);
+						break;
+					case "-clients":
+					{
+						String[] counts = args[++i].split(",");
+						clients = new int[counts.length];
+						for (int j = 0; j < counts.length; ++j)
+							clients[j] = Integer.parseInt(counts[j]);
+						break;
+					}
+					case "-seconds":
+						seconds = Long.parseLong(args[++i]);
+						break;
+					case "-size":
+						size = Integer.parseInt(args[++i]);
+						break;
+					case "-accuracy":
+						accuracy = Double.parseDouble(args[++i]);
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		}
+		catch (RuntimeException e)
+		{
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java GameLoadGenerator [-host NAME] [-port N] [-clients 1,2,4]"
+					+ " [-seconds N] [-size N] [-accuracy 0.9] [-embedded]");
+			System.exit(1);
+		}
+
+		GameHost embeddedHost = null;
+		try
+		{
+			if (embedded)
+			{
+				// an in-process host with no result delays, on any free port
+				int maxClients = 0;
+				for (int count : clients)
+					maxClients = Math.max(maxClients, count);
+				embeddedHost = new GameHost(maxClients, 1L << 30, false);
+				embeddedHost.start(0);
+				host = "127.0.0.1";
+				port = embeddedHost.getPort();
+			}
+
+			System.out.println(Runtime.getRuntime().availableProcessors() + " cores, "
+					+ size + "x" + size + " boards, " + host + ":" + port);
+			GameLoadGenerator generator = new GameLoadGenerator(host, port, size, accuracy);
+			for (int count : clients)
+				generator.run(count, seconds);
+
+			if (embeddedHost != null)
+				embeddedHost.close();
+		}
+		catch (IOException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+}
@@ -0,0 +1,421 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rules and state of one game, with no dependence on AWT or Swing.
+ * <p>
+ * Tiles are numbered left to right then top to bottom, and their state is kept
+ * in flat arrays. Times are passed in rather than read from a clock, so a game
+ * can be played in real time by the Swing views or as fast as possible by a
+ * simulator. Delays, such as how long "Correct!" is shown, are up to the
+ * caller: it calls {@link #reveal(int)} or {@link #retry(int, long)} when the
+ * delay is over.
+ * <p>
+ * The model also keeps the active tile and how many tiles are in each state
+ * up to date as tiles change, so neither needs a scan of the board.
+ */
+public class GameModel
+{
+
+	/**
+	 * How long to show "Correct!" before revealing the image, in milliseconds.
+	 */
+	public static final long CORRECT_DELAY = 1500;
+	/**
+	 * How long to show "Incorrect" before the next try, in milliseconds.
+	 */
+	public static final long INCORRECT_DELAY = 1000;
+	/**
+	 * How long a revealed tile takes to fade from its problem to its image, in
+	 * milliseconds.
+	 */
+	public static final long REVEAL_FADE = 300;
+	/**
+	 * The number of tries a problem gets.
+	 */
+	public static final int MAX_TRIES = 2;
+
+	private static final int MIN_ANSWER_WIDTH = 3;
+
+	private final ArrayList<ProblemType> types;
+	private final int numFamily;
+	private final int tileCount;
+
+	private final Problem[] problems;
+	private final PanelState[] panelStates;
+	private final ProblemState[] problemStates;
+	private final AnswerBuffer[] answers;
+	private final int[] tries;
+	private final long[] totalNanos;
+	private final long[] startNanos;
+
+	private final int[] panelStateCounts = new int[PanelState.values().length];
+	private final int[] problemStateCounts = new int[ProblemState.values().length];
+	private int activeTile = -1;
+	private int completeCount;
+
+	/**
+	 * Initializes a GameModel with every tile covered.
+	 * @param types The type(s) of problems in the game.
+	 * @param numFamily The number used in all the calculations.
+	 * @param board The problem for each tile.
+	 */
+	public GameModel(List<ProblemType> types, int numFamily, Problem[] board)
+	{
+		this.types = new ArrayList<ProblemType>(types);
+		this.numFamily = numFamily;
+		this.tileCount = board.length;
+
+		problems = new Problem[tileCount];
+		panelStates = new PanelState[tileCount];
+		problemStates = new ProblemState[tileCount];
+		answers = new AnswerBuffer[tileCount];
+		tries = new int[tileCount];
+		totalNanos = new long[tileCount];
+		startNanos = new long[tileCount];
+
+		int answerWidth = getAnswerWidth(types, numFamily);
+		for (int i = 0; i < tileCount; ++i)
+			answers[i] = new AnswerBuffer(answerWidth);
+
+		reset(board);
+	}
+
+	/**
+	 * Starts the game over with a new board of the same size, reusing the
+	 * model's storage.
+	 * @param board The problem for each tile.
+	 */
+	public void reset(Problem[] board)
+	{
+		if (board.length != tileCount)
+			throw new IllegalArgumentException("Board has " + board.length
+					+ " problems but the game has " + tileCount + " tiles");
+
+		Arrays.fill(panelStates, PanelState.COVER);
+		Arrays.fill(panelStateCounts, 0);
+		panelStateCounts[PanelState.COVER.ordinal()] = tileCount;
+		Arrays.fill(problemStates, ProblemState.NORMAL);
+		Arrays.fill(problemStateCounts, 0);
+		problemStateCounts[ProblemState.NORMAL.ordinal()] = tileCount;
+		activeTile = -1;
+
+		for (int i = 0; i < tileCount; ++i)
+			setProblem(i, board[i], 0);
+		completeCount = 0;
+	}
+
+	/**
+	 * Gets how many digits an answer needs for the largest problem of the given
+	 * types.
+	 * @param types The problem type(s).
+	 * @param numFamily The number family.
+	 * @return The number of digits.
+	 */
+	public static int getAnswerWidth(List<ProblemType> types, int numFamily)
+	{
+		int maxAnswer = ProblemTable.getMaxAnswer(types, numFamily);
+		return Math.max(MIN_ANSWER_WIDTH, AnswerBuffer.digitsIn(maxAnswer));
+	}
+
+	/**
+	 * Gets the problem type(s) of the game.
+	 * @return The problem type(s).
+	 */
+	public List<ProblemType> getTypes()
+	{
+		return types;
+	}
+	/**
+	 * Gets the number used in all the calculations.
+	 * @return The number family.
+	 */
+	public int getNumFamily()
+	{
+		return numFamily;
+	}
+	/**
+	 * Gets the number of tiles.
+	 * @return The tile count.
+	 */
+	public int getTileCount()
+	{
+		return tileCount;
+	}
+	/**
+	 * Gets the number of problems that are finished, right or wrong.
+	 * @return The complete count.
+	 */
+	public int getCompleteCount()
+	{
+		return completeCount;
+	}
+	/**
+	 * Gets whether every problem is finished.
+	 * @return Whether the game is complete.
+	 */
+	public boolean isComplete()
+	{
+		return completeCount == tileCount;
+	}
+
+	/**
+	 * Gets the number of tiles showing something.
+	 * @param state The panel state.
+	 * @return The number of tiles.
+	 */
+	public int getPanelStateCount(PanelState state)
+	{
+		return panelStateCounts[state.ordinal()];
+	}
+	/**
+	 * Gets the number of tiles whose problem is at a stage.
+	 * @param state The problem state.
+	 * @return The number of tiles.
+	 */
+	public int getProblemStateCount(ProblemState state)
+	{
+		return problemStateCounts[state.ordinal()];
+	}
+
+	/**
+	 * Gets what a tile is showing.
+	 * @param tile The tile.
+	 * @return The panel state.
+	 */
+	public PanelState getPanelState(int tile)
+	{
+		return panelStates[tile];
+	}
+	/**
+	 * Gets how far along a tile's problem is.
+	 * @param tile The tile.
+	 * @return The problem state.
+	 */
+	public ProblemState getProblemState(int tile)
+	{
+		return problemStates[tile];
+	}
+	/**
+	 * Gets a tile's problem.
+	 * @param tile The tile.
+	 * @return The problem.
+	 */
+	public Problem getProblem(int tile)
+	{
+		return problems[tile];
+	}
+	/**
+	 * Gets the answer being typed on a tile.
+	 * @param tile The tile.
+	 * @return The answer.
+	 */
+	public AnswerBuffer getAnswer(int tile)
+	{
+		return answers[tile];
+	}
+	/**
+	 * Gets the number of answers submitted on a tile.
+	 * @param tile The tile.
+	 * @return The number of tries.
+	 */
+	public int getTries(int tile)
+	{
+		return tries[tile];
+	}
+	/**
+	 * Gets the time spent on a tile's problem so far, not counting any time it
+	 * is open now.
+	 * @param tile The tile.
+	 * @return The time in nanoseconds.
+	 */
+	public long getTotalNanos(int tile)
+	{
+		return totalNanos[tile];
+	}
+	/**
+	 * Gets whether a tile's answer can be edited.
+	 * @param tile The tile.
+	 * @return Whether the tile is taking input.
+	 */
+	public boolean isEditable(int tile)
+	{
+		return panelStates[tile] == PanelState.PROBLEM
+				&& problemStates[tile] == ProblemState.NORMAL;
+	}
+
+	/**
+	 * Gives a tile a new problem and starts it over. A finished tile is no
+	 * longer counted as complete, and a revealed one shows its new problem.
+	 * @param tile The tile.
+	 * @param problem The problem.
+	 * @param nowNanos The current time.
+	 */
+	public void setProblem(int tile, Problem problem, long nowNanos)
+	{
+		if (problemStates[tile] == ProblemState.CORRECT
+				|| problemStates[tile] == ProblemState.INCORRECT_FINAL)
+			--completeCount;
+		if (panelStates[tile] == PanelState.IMAGE)
+			setPanelState(tile, PanelState.PROBLEM);
+
+		problems[tile] = problem;
+		setProblemState(tile, ProblemState.NORMAL);
+		answers[tile].clear();
+		tries[tile] = 0;
+		totalNanos[tile] = 0;
+		startNanos[tile] = nowNanos;
+
+		// an open problem that was finished is being worked on again
+		if (panelStates[tile] == PanelState.PROBLEM)
+			activate(tile, nowNanos);
+	}
+
+	/**
+	 * Opens a covered tile to show its problem. Any other unfinished problem
+	 * that is open is covered again and its clock paused.
+	 * @param tile The tile.
+	 * @param nowNanos The current time.
+	 * @return Whether the tile was opened.
+	 */
+	public boolean open(int tile, long nowNanos)
+	{
+		if (panelStates[tile] != PanelState.COVER)
+			return false;
+
+		activate(tile, nowNanos);
+		setPanelState(tile, PanelState.PROBLEM);
+		startNanos[tile] = nowNanos;
+		return true;
+	}
+	/**
+	 * Gets the open tile whose problem is still being worked on.
+	 * @return The tile, or -1 if there isn't one.
+	 */
+	public int getActiveTile()
+	{
+		return activeTile;
+	}
+
+	/**
+	 * Types a digit into a tile's answer.
+	 * @param tile The tile.
+	 * @param digit The digit, from 0 to 9.
+	 * @return Whether the answer changed.
+	 */
+	public boolean typeDigit(int tile, int digit)
+	{
+		return isEditable(tile) && answers[tile].type(digit);
+	}
+	/**
+	 * Removes the last digit from a tile's answer.
+	 * @param tile The tile.
+	 * @return Whether the answer changed.
+	 */
+	public boolean backspace(int tile)
+	{
+		return isEditable(tile) && answers[tile].backspace();
+	}
+
+	/**
+	 * Submits a tile's answer. A correct answer, or a wrong one on the last try,
+	 * finishes the problem.
+	 * @param tile The tile.
+	 * @param nowNanos The current time.
+	 * @return The new problem state, or null if there was nothing to submit.
+	 */
+	public ProblemState submit(int tile, long nowNanos)
+	{
+		if (!isEditable(tile) || answers[tile].isEmpty())
+			return null;
+
+		++tries[tile];
+		totalNanos[tile] += nowNanos - startNanos[tile];
+
+		if (answers[tile].getValue() == problems[tile].getAnswer())
+		{
+			setProblemState(tile, ProblemState.CORRECT);
+			++completeCount;
+		}
+		else if (tries[tile] >= MAX_TRIES)
+		{
+			setProblemState(tile, ProblemState.INCORRECT_FINAL);
+			++completeCount;
+
+			// the answer stays showing, but nothing more can be done with it
+			if (activeTile == tile)
+				activeTile = -1;
+		}
+		else
+		{
+			setProblemState(tile, ProblemState.INCORRECT);
+		}
+
+		return problemStates[tile];
+	}
+
+	/**
+	 * Shows the image on a correctly answered tile.
+	 * @param tile The tile.
+	 * @return Whether the image was revealed.
+	 */
+	public boolean reveal(int tile)
+	{
+		if (problemStates[tile] != ProblemState.CORRECT
+				|| panelStates[tile] == PanelState.IMAGE)
+			return false;
+
+		setPanelState(tile, PanelState.IMAGE);
+		if (activeTile == tile)
+			activeTile = -1;
+		return true;
+	}
+	/**
+	 * Clears a wrong answer so the problem can be tried again.
+	 * @param tile The tile.
+	 * @param nowNanos The current time, which restarts the tile's clock.
+	 * @return Whether the tile is ready to try again.
+	 */
+	public boolean retry(int tile, long nowNanos)
+	{
+		if (problemStates[tile] != ProblemState.INCORRECT)
+			return false;
+
+		activate(tile, nowNanos);
+		setPanelState(tile, PanelState.PROBLEM);
+		setProblemState(tile, ProblemState.NORMAL);
+		answers[tile].clear();
+		startNanos[tile] = nowNanos;
+		return true;
+	}
+
+	/**
+	 * Makes a tile the one being worked on, covering the one that was and
+	 * pausing its clock.
+	 */
+	private void activate(int tile, long nowNanos)
+	{
+		if (activeTile >= 0 && activeTile != tile)
+		{
+			totalNanos[activeTile] += nowNanos - startNanos[activeTile];
+			setPanelState(activeTile, PanelState.COVER);
+		}
+		activeTile = tile;
+	}
+
+	private void setPanelState(int tile, PanelState state)
+	{
+		--panelStateCounts[panelStates[tile].ordinal()];
+		++panelStateCounts[state.ordinal()];
+		panelStates[tile] = state;
+	}
+
+	private void setProblemState(int tile, ProblemState state)
+	{
+		--problemStateCounts[problemStates[tile].ordinal()];
+		++problemStateCounts[state.ordinal()];
+		problemStates[tile] = state;
+	}
+
+}
@@ -0,0 +1,223 @@
+import java.util.Arrays;
+
+/**
+ * The results of one game, one entry per answered problem in the order they
+ * were finished, kept in primitive arrays sized to the board.
+ * <p>
+ * The totals are kept up to date as each result is added, so the count,
+ * accuracy, mean, and tries distribution cost nothing to read during a game.
+ * Times are also kept sorted as they are added, which is a copy of at most one
+ * board's worth of longs, so percentiles are exact and read in constant time.
+ */
+public class GameResults
+{
+
+	private final Problem[] problems;
+	private final int[] answersGiven;
+	private final boolean[] correct;
+	private final long[] nanos;
+	private final int[] tries;
+	private int count;
+
+	private int correctCount;
+	private long totalNanos;
+	private final long[] sortedNanos;
+	private final int[] triesCounts = new int[GameModel.MAX_TRIES + 1];
+
+	/**
+	 * Initializes an empty GameResults.
+	 * @param capacity The number of problems in the game.
+	 */
+	public GameResults(int capacity)
+	{
+		problems = new Problem[capacity];
+		answersGiven = new int[capacity];
+		correct = new boolean[capacity];
+		nanos = new long[capacity];
+		tries = new int[capacity];
+		sortedNanos = new long[capacity];
+	}
+
+	/**
+	 * Adds the result of a problem.
+	 * @param problem The problem.
+	 * @param answerGiven The last answer given.
+	 * @param isCorrect Whether it was answered correctly.
+	 * @param triesTaken The number of tries taken.
+	 * @param nanosTaken The time taken in nanoseconds.
+	 */
+	public void add(Problem problem, int answerGiven, boolean isCorrect, int triesTaken,
+			long nanosTaken)
+	{
+		if (count == problems.length)
+			throw new IllegalStateException("Game only has " + problems.length + " problems");
+
+		problems[count] = problem;
+		answersGiven[count] = answerGiven;
+		correct[count] = isCorrect;
+		nanos[count] = nanosTaken;
+		tries[count] = triesTaken;
+
+		if (isCorrect)
+			++correctCount;
+		totalNanos += nanosTaken;
+		++triesCounts[Math.min(Math.max(triesTaken, 0), GameModel.MAX_TRIES)];
+
+		int insertAt = Arrays.binarySearch(sortedNanos, 0, count, nanosTaken);
+		if (insertAt < 0)
+			insertAt = -insertAt - 1;
+		System.arraycopy(sortedNanos, insertAt, sortedNanos, insertAt + 1, count - insertAt);
+		sortedNanos[insertAt] = nanosTaken;
+
+		++count;
+	}
+
+	/**
+	 * Gets the number of problems in the game.
+	 * @return The capacity.
+	 */
+	public int getCapacity()
+	{
+		return problems.length;
+	}
+	/**
+	 * Gets the number of results so far.
+	 * @return The count.
+	 */
+	public int getCount()
+	{
+		return count;
+	}
+	/**
+	 * Gets whether every problem in the game has a result.
+	 * @return Whether the results are complete.
+	 */
+	public boolean isComplete()
+	{
+		return count == problems.length;
+	}
+
+	/**
+	 * Gets a problem.
+	 * @param index The index of the result.
+	 * @return The problem.
+	 */
+	public Problem getProblem(int index)
+	{
+		checkIndex(index);
+		return problems[index];
+	}
+	/**
+	 * Gets the last answer given to a problem.
+	 * @param index The index of the result.
+	 * @return The answer given.
+	 */
+	public int getAnswerGiven(int index)
+	{
+		checkIndex(index);
+		return answersGiven[index];
+	}
+	/**
+	 * Gets whether a problem was answered correctly.
+	 * @param index The index of the result.
+	 * @return Whether it was correct.
+	 */
+	public boolean isCorrect(int index)
+	{
+		checkIndex(index);
+		return correct[index];
+	}
+	/**
+	 * Gets the time taken on a problem.
+	 * @param index The index of the result.
+	 * @return The time in nanoseconds.
+	 */
+	public long getNanos(int index)
+	{
+		checkIndex(index);
+		return nanos[index];
+	}
+	/**
+	 * Gets the number of tries taken on a problem.
+	 * @param index The index of the result.
+	 * @return The number of tries.
+	 */
+	public int getTries(int index)
+	{
+		checkIndex(index);
+		return tries[index];
+	}
+
+	/**
+	 * Gets the number of problems answered correctly.
+	 * @return The number correct.
+	 */
+	public int getCorrectCount()
+	{
+		return correctCount;
+	}
+	/**
+	 * Gets the fraction of problems answered correctly.
+	 * @return The accuracy from 0 to 1, or 0 if there are no results.
+	 */
+	public double getAccuracy()
+	{
+		return count == 0 ? 0 : (double) correctCount / count;
+	}
+	/**
+	 * Gets the total time taken.
+	 * @return The time in nanoseconds.
+	 */
+	public long getTotalNanos()
+	{
+		return totalNanos;
+	}
+	/**
+	 * Gets the mean time taken.
+	 * @return The time in nanoseconds, or 0 if there are no results.
+	 */
+	public long getAverageNanos()
+	{
+		return count == 0 ? 0 : totalNanos / count;
+	}
+	/**
+	 * Gets the time that the given fraction of problems took at most, using the
+	 * nearest rank.
+	 * @param fraction The fraction, such as 0.9.
+	 * @return The time in nanoseconds, or 0 if there are no results.
+	 */
+	public long getPercentileNanos(double fraction)
+	{
+		if (count == 0)
+			return 0;
+
+		int rank = (int) Math.ceil(fraction * count);
+		return sortedNanos[Math.min(Math.max(rank, 1), count) - 1];
+	}
+	/**
+	 * Gets the median time taken.
+	 * @return The time in nanoseconds.
+	 */
+	public long getMedianNanos()
+	{
+		return getPercentileNanos(0.5);
+	}
+	/**
+	 * Gets the number of problems finished in the given number of tries.
+	 * @param triesTaken The number of tries.
+	 * @return The number of problems.
+	 */
+	public int getTriesCount(int triesTaken)
+	{
+		if (triesTaken < 0 || triesTaken >= triesCounts.length)
+			return 0;
+		return triesCounts[triesTaken];
+	}
+
+	private void checkIndex(int index)
+	{
+		if (index < 0 || index >= count)
+			throw new IndexOutOfBoundsException("Result " + index + " of " + count);
+	}
+
+}
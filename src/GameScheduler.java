@@ -0,0 +1,201 @@
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs delayed game callbacks on the event dispatch thread using one timer
+ * thread for the whole game, however many panels or games there are. The
+ * timer thread only hands callbacks over; it never touches the game itself.
+ */
+public class GameScheduler
+{
+
+	private final ScheduledThreadPoolExecutor executor;
+	private final Executor eventThread;
+
+	private final AtomicLong runCount = new AtomicLong();
+	private final AtomicLong totalJitterNanos = new AtomicLong();
+	private final AtomicLong maxJitterNanos = new AtomicLong();
+
+	/**
+	 * Initializes a GameScheduler with its own timer thread that hands
+	 * callbacks straight to the event dispatch thread.
+	 */
+	public GameScheduler()
+	{
+		this(SwingUtilities::invokeLater);
+	}
+	/**
+	 * Initializes a GameScheduler with its own timer thread.
+	 * @param eventThread Runs callbacks on the event dispatch thread, such as
+	 * a game's {@link GameCommandQueue}.
+	 */
+	public GameScheduler(Executor eventThread)
+	{
+		this.eventThread = eventThread;
+		executor = new ScheduledThreadPoolExecutor(1, runnable ->
+		{
+			Thread thread = new Thread(runnable, "game-scheduler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		// don't let cancelled callbacks pile up in the queue
+		executor.setRemoveOnCancelPolicy(true);
+	}
+
+	/**
+	 * Schedules a callback to run once on the event dispatch thread.
+	 * @param task The callback.
+	 * @param delayMillis The delay in milliseconds.
+	 * @return A handle that can cancel the callback.
+	 */
+	public Handle schedule(Runnable task, long delayMillis)
+	{
+		Handle handle = new Handle();
+		long dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+
+		handle.future = executor.schedule(() -> eventThread.execute(() ->
+		{
+			if (!handle.cancelled)
+			{
+				recordJitter(dueNanos);
+				task.run();
+			}
+		}), delayMillis, TimeUnit.MILLISECONDS);
+
+		return handle;
+	}
+	/**
+	 * Schedules a callback to run repeatedly on the event dispatch thread.
+	 * Runs that fall behind are skipped rather than queued up on the EDT.
+	 * @param task The callback.
+	 * @param periodMillis The time between runs in milliseconds.
+	 * @return A handle that can cancel the callback.
+	 */
+	public Handle scheduleAtFixedRate(Runnable task, long periodMillis)
+	{
+		Handle handle = new Handle();
+		long periodNanos = TimeUnit.MILLISECONDS.toNanos(periodMillis);
+		long firstDueNanos = System.nanoTime() + periodNanos;
+		AtomicLong runs = new AtomicLong();
+
+		handle.future = executor.scheduleAtFixedRate(() ->
+		{
+			long run = runs.incrementAndGet();
+			if (!handle.pending.compareAndSet(false, true))
+				return;
+
+			eventThread.execute(() ->
+			{
+				handle.pending.set(false);
+				if (!handle.cancelled)
+				{
+					recordJitter(firstDueNanos + (run - 1) * periodNanos);
+					task.run();
+				}
+			});
+		}, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+
+		return handle;
+	}
+
+	/**
+	 * Gets the number of threads the scheduler is using.
+	 * @return The thread count.
+	 */
+	public int getThreadCount()
+	{
+		return executor.getPoolSize();
+	}
+	/**
+	 * Gets the number of callbacks that are waiting to run.
+	 * @return The number of queued callbacks.
+	 */
+	public int getQueuedCount()
+	{
+		return executor.getQueue().size();
+	}
+	/**
+	 * Gets the number of callbacks that have run.
+	 * @return The run count.
+	 */
+	public long getRunCount()
+	{
+		return runCount.get();
+	}
+	/**
+	 * Gets the average time callbacks ran after they were due, including the
+	 * wait for the event dispatch thread.
+	 * @return The mean jitter in nanoseconds.
+	 */
+	public long getMeanJitterNanos()
+	{
+		long runs = runCount.get();
+		return runs == 0 ? 0 : totalJitterNanos.get() / runs;
+	}
+	/**
+	 * Gets the longest time a callback ran after it was due.
+	 * @return The maximum jitter in nanoseconds.
+	 */
+	public long getMaxJitterNanos()
+	{
+		return maxJitterNanos.get();
+	}
+
+	/**
+	 * Stops the timer thread. Callbacks that haven't run yet are dropped.
+	 */
+	public void shutdown()
+	{
+		executor.shutdownNow();
+	}
+
+	private void recordJitter(long dueNanos)
+	{
+		long jitter = Math.max(0, System.nanoTime() - dueNanos);
+
+		runCount.incrementAndGet();
+		totalJitterNanos.addAndGet(jitter);
+
+		long max;
+		while (jitter > (max = maxJitterNanos.get()))
+			if (maxJitterNanos.compareAndSet(max, jitter))
+				break;
+	}
+
+	/**
+	 * A scheduled callback that can be cancelled.
+	 */
+	public static class Handle
+	{
+		private volatile boolean cancelled;
+		private volatile ScheduledFuture<?> future;
+		private final AtomicBoolean pending = new AtomicBoolean();
+
+		/**
+		 * Cancels the callback. It won't run again, even if it was already
+		 * waiting on the event dispatch thread.
+		 */
+		public void cancel()
+		{
+			cancelled = true;
+			ScheduledFuture<?> scheduled = future;
+			if (scheduled != null)
+				scheduled.cancel(false);
+		}
+		/**
+		 * Gets whether the callback has been cancelled.
+		 * @return Whether the callback was cancelled.
+		 */
+		public boolean isCancelled()
+		{
+			return cancelled;
+		}
+	}
+
+}
@@ -0,0 +1,314 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * One headless game played over a {@link GameHost} connection, with the same
+ * board, timing, and scoring as a {@link MathGamePanel}.
+ * <p>
+ * A session takes one command line at a time and returns the reply line:
+ * <pre>
+ * NEW size numFamily TYPE[,TYPE...] [seed]  starts a game          OK tiles
+ * OPEN tile                                 shows a problem        PROBLEM tile TYPE first second
+ * ANSWER tile number                        submits an answer      CORRECT, INCORRECT, or FINAL answer
+ * STATE                                     what each tile shows   STATE followed by a letter a tile
+ * STATS                                     the results so far     STATS count correct meanNanos p50Nanos p90Nanos
+ * QUIT                                      ends the session       BYE
+ * </pre>
+ * Without a seed, NEW deals a board focused on the facts the session has
+ * answered slowly or wrong. With a seed it deals evenly from the problem
+ * tables, so the same seed always gives the same board, whatever the session
+ * has answered.
+ * <p>
+ * Tile states are C (covered), P (problem), X (finished wrong), and I (image).
+ * Any command can instead get {@code ERR message}, and OPEN or ANSWER get
+ * {@code WAIT millis} while a result is being shown. A game that has just
+ * been finished also adds {@code DONE} to the reply.
+ * <p>
+ * The result delays are timed from the clock passed to
+ * {@link #handle(String, long)} rather than by timers, so an idle session
+ * costs nothing. A session is used by one thread at a time.
+ */
+public class GameSession
+{
+
+	// rough sizes of the session's own objects, for memory accounting
+	private static final long SESSION_BYTES = 512;
+	private static final long TILE_BYTES = 160;
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final int MAX_SIZE = 32;
+
+	private final FactIndex factIndex = new FactIndex();
+	private final boolean delays;
+	private final SplittableRandom seeds = new SplittableRandom();
+
+	private GameModel model;
+	private GameResults results;
+
+	// the tile showing a result, and when the result delay is over
+	private int pendingTile = -1;
+	private long pendingDueNanos;
+
+	/**
+	 * Initializes a GameSession with no game.
+	 * @param delays Whether results are shown for as long as in the game
+	 * window. Turn this off for load testing.
+	 */
+	public GameSession(boolean delays)
+	{
+		this.delays = delays;
+	}
+
+	/**
+	 * Gets the current game.
+	 * @return The game model, or null before the first game.
+	 */
+	public GameModel getModel()
+	{
+		return model;
+	}
+	/**
+	 * Gets the results of the current game.
+	 * @return The results, or null before the first game.
+	 */
+	public GameResults getResults()
+	{
+		return results;
+	}
+
+	/**
+	 * Estimates the memory the session holds.
+	 * @return The size in bytes.
+	 */
+	public long getEstimatedBytes()
+	{
+		long tiles = model == null ? 0 : model.getTileCount();
+		return SESSION_BYTES + tiles * TILE_BYTES + factIndex.getEstimatedBytes();
+	}
+	/**
+	 * Estimates the memory the session would hold with a game of the given size.
+	 * @param size The number of tiles on each side.
+	 * @return The size in bytes.
+	 */
+	public long getEstimatedBytes(int size)
+	{
+		return SESSION_BYTES + (long) size * size * TILE_BYTES + factIndex.getEstimatedBytes();
+	}
+
+	/**
+	 * Runs one command.
+	 * @param line The command line.
+	 * @param nowNanos The current time.
+	 * @return The reply line.
+	 */
+	public String handle(String line, long nowNanos)
+	{
+		String[] words = line.trim().split("\\s+");
+		try
+		{
+			settle(nowNanos);
+
+			switch (words[0].toUpperCase())
+			{
+				case "NEW":
+					return newGame(words);
+				case "OPEN":
+					return open(parseTile(words), nowNanos);
+				case "ANSWER":
+					return answer(parseTile(words), words, nowNanos);
+				case "STATE":
+					return state();
+				case "STATS":
+					return stats();
+				case "QUIT":
+					return "BYE";
+				default:
+					return "ERR unknown command " + words[0];
+			}
+		}
+		catch (RuntimeException e)
+		{
+			return "ERR " + e.getMessage();
+		}
+	}
+
+	/**
+	 * Finishes showing a result once its delay is over, like the timers of a
+	 * MathProblemPanel.
+	 */
+	private void settle(long nowNanos)
+	{
+		if (pendingTile < 0 || nowNanos - pendingDueNanos < 0)
+			return;
+
+		if (model.getProblemState(pendingTile) == ProblemState.CORRECT)
+			model.reveal(pendingTile);
+		else
+			model.retry(pendingTile, pendingDueNanos);
+		pendingTile = -1;
+	}
+
+	private String newGame(String[] words)
+	{
+		if (words.length < 4)
+			throw new IllegalArgumentException("usage: NEW size numFamily TYPE[,TYPE...] [seed]");
+
+		int size = Integer.parseInt(words[1]);
+		if (size < 1 || size > MAX_SIZE)
+			throw new IllegalArgumentException("size must be from 1 to " + MAX_SIZE);
+		int numFamily = Integer.parseInt(words[2]);
+		if (numFamily < 0 || numFamily > ProblemTable.NUMBER_MAX)
+			throw new IllegalArgumentException("number family must be from 0 to " + ProblemTable.NUMBER_MAX);
+
+		List<ProblemType> types = new ArrayList<ProblemType>();
+		for (String type : words[3].split(","))
+			types.add(ProblemType.valueOf(type.toUpperCase()));
+		// a given seed is for repeating a board, which the history would change
+		boolean seeded = words.length > 4;
+		long seed = seeded ? Long.parseLong(words[4]) : seeds.nextLong();
+
+		ProblemGenerator generator = seeded ? new TableProblemGenerator(types)
+				: new AdaptiveProblemGenerator(types, factIndex);
+		Problem[] board = generator.generate(numFamily, size * size, seed);
+		if (model != null && model.getTileCount() == board.length
+				&& model.getTypes().equals(types) && model.getNumFamily() == numFamily)
+			model.reset(board);
+		else
+			model = new GameModel(types, numFamily, board);
+
+		results = new GameResults(board.length);
+		pendingTile = -1;
+		return "OK " + board.length;
+	}
+
+	private int parseTile(String[] words)
+	{
+		if (model == null)
+			throw new IllegalStateException("no game, use NEW first");
+		if (words.length < 2)
+			throw new IllegalArgumentException("no tile given");
+
+		int tile = Integer.parseInt(words[1]);
+		if (tile < 0 || tile >= model.getTileCount())
+			throw new IllegalArgumentException("tile must be from 0 to " + (model.getTileCount() - 1));
+		return tile;
+	}
+
+	private String open(int tile, long nowNanos)
+	{
+		if (pendingTile >= 0)
+			return waitReply(nowNanos);
+		if (!model.open(tile, nowNanos) && model.getPanelState(tile) == PanelState.IMAGE)
+			throw new IllegalStateException("tile " + tile + " is already solved");
+
+		Problem problem = model.getProblem(tile);
+		return "PROBLEM " + tile + " " + problem.getType() + " "
+				+ problem.getFirstNum() + " " + problem.getSecondNum();
+	}
+
+	private String answer(int tile, String[] words, long nowNanos)
+	{
+		if (pendingTile >= 0)
+			return waitReply(nowNanos);
+		if (words.length < 3)
+			throw new IllegalArgumentException("no answer given");
+		if (!model.isEditable(tile))
+			throw new IllegalStateException("tile " + tile + " is not open");
+
+		String number = words[2];
+		AnswerBuffer answer = model.getAnswer(tile);
+		if (number.isEmpty() || number.length() > answer.getWidth())
+			throw new IllegalArgumentException("answer must have 1 to " + answer.getWidth() + " digits");
+
+		while (model.backspace(tile))
+		{
+			// clear what was typed before
+		}
+		for (int i = 0; i < number.length(); ++i)
+		{
+			char digit = number.charAt(i);
+			if (digit < '0' || digit > '9')
+				throw new IllegalArgumentException("answer must be a whole number");
+			model.typeDigit(tile, digit - '0');
+		}
+
+		ProblemState state = model.submit(tile, nowNanos);
+		Problem problem = model.getProblem(tile);
+		String reply;
+		switch (state)
+		{
+			case CORRECT:
+				startDelay(tile, GameModel.CORRECT_DELAY, nowNanos);
+				reply = "CORRECT";
+				break;
+			case INCORRECT:
+				startDelay(tile, GameModel.INCORRECT_DELAY, nowNanos);
+				reply = "INCORRECT";
+				break;
+			default:
+				reply = "FINAL " + problem.getAnswer();
+				break;
+		}
+
+		if (state != ProblemState.INCORRECT)
+		{
+			boolean correct = state == ProblemState.CORRECT;
+			results.add(problem, answer.getValue(), correct,
+					model.getTries(tile), model.getTotalNanos(tile));
+			factIndex.record(problem, correct, model.getTotalNanos(tile));
+			if (model.isComplete())
+				reply += " DONE";
+		}
+		return reply;
+	}
+
+	private void startDelay(int tile, long delayMillis, long nowNanos)
+	{
+		pendingTile = tile;
+		pendingDueNanos = nowNanos + (delays ? delayMillis * NANOS_PER_MILLI : 0);
+		if (!delays)
+			settle(nowNanos);
+	}
+
+	private String waitReply(long nowNanos)
+	{
+		long millis = (pendingDueNanos - nowNanos + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI;
+		return "WAIT " + Math.max(millis, 1);
+	}
+
+	private String state()
+	{
+		if (model == null)
+			throw new IllegalStateException("no game, use NEW first");
+
+		StringBuilder reply = new StringBuilder("STATE ");
+		for (int i = 0; i < model.getTileCount(); ++i)
+		{
+			switch (model.getPanelState(i))
+			{
+				case COVER:
+					reply.append('C');
+					break;
+				case IMAGE:
+					reply.append('I');
+					break;
+				default:
+					reply.append(model.getProblemState(i) == ProblemState.INCORRECT_FINAL ? 'X' : 'P');
+					break;
+			}
+		}
+		return reply.toString();
+	}
+
+	private String stats()
+	{
+		if (results == null)
+			throw new IllegalStateException("no game, use NEW first");
+
+		return "STATS " + results.getCount() + " " + results.getCorrectCount() + " "
+				+ results.getAverageNanos() + " " + results.getMedianNanos() + " "
+				+ results.getPercentileNanos(0.9);
+	}
+
+}
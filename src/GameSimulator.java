@@ -0,0 +1,332 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays games on a {@link GameModel} with simulated players, with no user
+ * interface, to check the game rules and the problem generator at volume.
+ * <p>
+ * Players take a random time to answer each problem and are right with a fixed
+ * probability. Time is simulated, so the result delays cost nothing and a game
+ * runs as fast as the model allows. Each worker thread reuses one model for all
+ * of its games.
+ */
+public class GameSimulator
+{
+
+	private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+	private static final int DEFAULT_GAMES = 100000;
+	private static final int DEFAULT_SIZE = 4;
+	private static final int DEFAULT_NUM_FAMILY = 7;
+	private static final double DEFAULT_ACCURACY = 0.8;
+	private static final long DEFAULT_LATENCY = 3000;
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private final ArrayList<ProblemType> types;
+	private final int numFamily;
+	private final int size;
+	private final double accuracy;
+	private final long meanLatencyNanos;
+	private final ProblemGenerator generator;
+
+	/**
+	 * Initializes a GameSimulator.
+	 * @param types The type(s) of problems in each game.
+	 * @param numFamily The number used in all the calculations.
+	 * @param size The number of tiles on each side of the board.
+	 * @param accuracy The chance a player answers correctly, from 0 to 1.
+	 * @param meanLatency The mean time a player takes to answer, in milliseconds.
+	 */
+	public GameSimulator(List<ProblemType> types, int numFamily, int size,
+			double accuracy, long meanLatency)
+	{
+		if (accuracy < 0 || accuracy > 1)
+			throw new IllegalArgumentException("Accuracy must be from 0 to 1");
+
+		this.types = new ArrayList<ProblemType>(types);
+		this.numFamily = numFamily;
+		this.size = size;
+		this.accuracy = accuracy;
+		this.meanLatencyNanos = meanLatency * NANOS_PER_MILLI;
+		this.generator = new TableProblemGenerator(types);
+	}
+
+	/**
+	 * Plays games on the current thread.
+	 * @param games The number of games.
+	 * @param seed The seed, which decides every board and every answer.
+	 * @return The totals.
+	 */
+	public Result play(int games, long seed)
+	{
+		SplittableRandom rng = new SplittableRandom(seed);
+		Result result = new Result();
+		GameModel model = null;
+
+		for (int game = 0; game < games; ++game)
+		{
+			Problem[] board = generator.generate(numFamily, size * size, rng);
+			if (model == null)
+				model = new GameModel(types, numFamily, board);
+			else
+				model.reset(board);
+
+			playGame(model, rng, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Plays games split across worker threads. Each worker's seed is drawn from
+	 * the given seed, so the totals only depend on the seed and thread count.
+	 * @param threads The number of worker threads.
+	 * @param games The number of games in all.
+	 * @param seed The seed.
+	 * @return The totals of all the workers.
+	 */
+	public Result run(int threads, int games, long seed)
+	{
+		SplittableRandom seeds = new SplittableRandom(seed);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			List<Future<Result>> futures = new ArrayList<Future<Result>>();
+			for (int i = 0; i < threads; ++i)
+			{
+				int workerGames = games / threads + (i < games % threads ? 1 : 0);
+				long workerSeed = seeds.nextLong();
+				futures.add(executor.submit(() -> play(workerGames, workerSeed)));
+			}
+
+			Result total = new Result();
+			for (Future<Result> future : futures)
+				total.add(future.get());
+			return total;
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Simulation interrupted", e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Simulation failed", e.getCause());
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+
+	private void playGame(GameModel model, SplittableRandom rng, Result result)
+	{
+		long now = 0;
+
+		for (int tile = 0; tile < model.getTileCount(); ++tile)
+		{
+			model.open(tile, now);
+
+			ProblemState state;
+			do
+			{
+				now += nextLatency(rng);
+
+				int answer = model.getProblem(tile).getAnswer();
+				if (rng.nextDouble() >= accuracy)
+					answer += 1 + rng.nextInt(3);
+				typeNumber(model, tile, answer);
+
+				state = model.submit(tile, now);
+				if (state == ProblemState.INCORRECT)
+				{
+					now += GameModel.INCORRECT_DELAY * NANOS_PER_MILLI;
+					model.retry(tile, now);
+				}
+			}
+			while (state == ProblemState.INCORRECT);
+
+			if (state == ProblemState.CORRECT)
+			{
+				now += GameModel.CORRECT_DELAY * NANOS_PER_MILLI;
+				model.reveal(tile);
+				++result.correct;
+			}
+
+			++result.problems;
+			result.tries += model.getTries(tile);
+			result.totalNanos += model.getTotalNanos(tile);
+		}
+
+		if (!model.isComplete())
+			throw new IllegalStateException("Game ended with "
+					+ model.getCompleteCount() + " of " + model.getTileCount() + " problems complete");
+		++result.games;
+	}
+
+	private long nextLatency(SplittableRandom rng)
+	{
+		// exponentially distributed around the mean
+		return (long) (-meanLatencyNanos * Math.log(1 - rng.nextDouble()));
+	}
+
+	private static void typeNumber(GameModel model, int tile, int number)
+	{
+		int place = 1;
+		while (place <= number / 10)
+			place *= 10;
+
+		for (; place > 0; place /= 10)
+			model.typeDigit(tile, number / place % 10);
+	}
+
+	/**
+	 * The totals of a simulation.
+	 */
+	public static class Result
+	{
+
+		private long games;
+		private long problems;
+		private long correct;
+		private long tries;
+		private long totalNanos;
+
+		private void add(Result other)
+		{
+			games += other.games;
+			problems += other.problems;
+			correct += other.correct;
+			tries += other.tries;
+			totalNanos += other.totalNanos;
+		}
+
+		/**
+		 * Gets the number of games played.
+		 * @return The number of games.
+		 */
+		public long getGames()
+		{
+			return games;
+		}
+		/**
+		 * Gets the number of problems answered.
+		 * @return The number of problems.
+		 */
+		public long getProblems()
+		{
+			return problems;
+		}
+		/**
+		 * Gets the number of problems answered correctly.
+		 * @return The number correct.
+		 */
+		public long getCorrect()
+		{
+			return correct;
+		}
+		/**
+		 * Gets the number of answers submitted.
+		 * @return The number of tries.
+		 */
+		public long getTries()
+		{
+			return tries;
+		}
+		/**
+		 * Gets the simulated time spent on all the problems.
+		 * @return The time in nanoseconds.
+		 */
+		public long getTotalNanos()
+		{
+			return totalNanos;
+		}
+
+	}
+
+	/**
+	 * Runs a simulation and prints the totals.
+	 * @param args [-threads N] [-games N] [-size N] [-family N] [-accuracy 0.8]
+	 * [-latency MS] [-seed N] [-types ADDITION,SUBTRACTION]
+	 */
+	public static void main(String[] args)
+	{
+		int threads = DEFAULT_THREADS;
+		int games = DEFAULT_GAMES;
+		int size = DEFAULT_SIZE;
+		int numFamily = DEFAULT_NUM_FAMILY;
+		double accuracy = DEFAULT_ACCURACY;
+		long latency = DEFAULT_LATENCY;
+		long seed = System.nanoTime();
+		List<ProblemType> types = Arrays.asList(ProblemType.values());
+
+		try
+		{
+			for (int i = 0; i < args.length; ++i)
+			{
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("Missing value for " + args[i]);
+
+				switch (args[i])
+				{
+					case "-threads":
+						threads = Integer.parseInt(args[++i]);
+						break;
+					case "-games":
+						games = Integer.parseInt(args[++i]);
+						break;
+					case "-size":
+						size = Integer.parseInt(args[++i]);
+						break;
+					case "-family":
+						numFamily = Integer.parseInt(args[++i]);
+						break;
+					case "-accuracy":
+						accuracy = Double.parseDouble(args[++i]);
+						break;
+					case "-latency":
+						latency = Long.parseLong(args[++i]);
+						break;
+					case "-seed":
+						seed = Long.parseLong(args[++i]);
+						break;
+					case "-types":
+						types = new ArrayList<ProblemType>();
+						for (String type : args[++i].split(","))
+							types.add(ProblemType.valueOf(type.trim().toUpperCase()));
+						break;
+					default:
+						throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		}
+		catch (RuntimeException e)
+		{
+			System.err.println(e.getMessage());
+			System.err.println("Usage: java GameSimulator [-threads N] [-games N] [-size N] [-family N]"
+					+ " [-accuracy 0.8] [-latency MS] [-seed N] [-types ADDITION,SUBTRACTION]");
+			System.exit(1);
+		}
+
+		GameSimulator simulator = new GameSimulator(types, numFamily, size, accuracy, latency);
+
+		long startNanos = System.nanoTime();
+		Result result = simulator.run(threads, games, seed);
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+		System.out.printf("%d games on %d threads in %.2f s (%.0f games/s, seed %d)%n",
+				result.getGames(), threads, seconds, result.getGames() / seconds, seed);
+		System.out.printf("%d problems, %.1f%% correct, %.2f tries and %.2f s each%n",
+				result.getProblems(),
+				100.0 * result.getCorrect() / result.getProblems(),
+				(double) result.getTries() / result.getProblems(),
+				result.getTotalNanos() / 1e9 / result.getProblems());
+	}
+
+}
@@ -0,0 +1,107 @@
+import java.util.function.IntConsumer;
+
+/**
+ * Which tile of a game's grid the mouse is over and which one is being worked
+ * on, so hovering and opening tiles only repaint the tiles that change
+ * instead of sweeping the whole board. The active tile and the number of
+ * tiles in each state come from the {@link GameModel}, which keeps them up to
+ * date as tiles change.
+ * <p>
+ * The index is used on the event dispatch thread only.
+ */
+public class GridIndex
+{
+
+	private final GameModel model;
+	private final IntConsumer repaintTile;
+
+	private int hoveredTile = -1;
+
+	/**
+	 * Initializes a GridIndex with no tile hovered.
+	 * @param model The game.
+	 * @param repaintTile Asks for a tile to be repainted, whether it is drawn
+	 * by its own problem panel or as part of a {@link TileGridView}.
+	 */
+	public GridIndex(GameModel model, IntConsumer repaintTile)
+	{
+		this.model = model;
+		this.repaintTile = repaintTile;
+	}
+
+	/**
+	 * Gets the tile the mouse is over.
+	 * @return The tile, or -1 if the mouse isn't over the grid.
+	 */
+	public int getHoveredTile()
+	{
+		return hoveredTile;
+	}
+	/**
+	 * Sets the tile the mouse is over, repainting the covers that change.
+	 * @param tile The tile, or -1 if the mouse isn't over the grid.
+	 */
+	public void setHoveredTile(int tile)
+	{
+		if (tile == hoveredTile)
+			return;
+
+		int oldTile = hoveredTile;
+		hoveredTile = tile;
+		repaintCover(oldTile);
+		repaintCover(tile);
+	}
+	/**
+	 * Clears the hovered tile if the mouse has left it.
+	 * @param tile The tile the mouse left.
+	 */
+	public void clearHoveredTile(int tile)
+	{
+		if (tile == hoveredTile)
+			setHoveredTile(-1);
+	}
+
+	/**
+	 * Gets the open tile whose problem is still being worked on.
+	 * @return The tile, or -1 if there isn't one.
+	 */
+	public int getActiveTile()
+	{
+		return model.getActiveTile();
+	}
+	/**
+	 * Gets the number of tiles showing something.
+	 * @param state The panel state.
+	 * @return The number of tiles.
+	 */
+	public int getCount(PanelState state)
+	{
+		return model.getPanelStateCount(state);
+	}
+
+	/**
+	 * Opens a tile, covering the tile that was being worked on, and repaints
+	 * the two of them.
+	 * @param tile The tile.
+	 * @param nowNanos The current time.
+	 * @return Whether the tile was opened.
+	 */
+	public boolean open(int tile, long nowNanos)
+	{
+		int oldTile = model.getActiveTile();
+		if (!model.open(tile, nowNanos))
+			return false;
+
+		if (oldTile >= 0)
+			repaintTile.accept(oldTile);
+		repaintTile.accept(tile);
+		return true;
+	}
+
+	private void repaintCover(int tile)
+	{
+		if (tile >= 0 && model.getPanelState(tile) == PanelState.COVER)
+			repaintTile.accept(tile);
+	}
+
+}
@@ -0,0 +1,313 @@
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+/**
+ * Decodes game images on background threads and keeps the decoded images in a
+ * least recently used cache that is bounded by the number of pixel bytes held.
+ * Images can be decoded at full resolution or subsampled down to the size they
+ * will be displayed at. The image packs next to the images are kept open too.
+ */
+public class ImageAssetCache
+{
+
+	private static final long DEFAULT_MAX_BYTES = 96L * 1024 * 1024;
+	private static final int DECODE_THREADS = 2;
+
+	private final ExecutorService executor;
+	private final long maxBytes;
+	private long totalBytes;
+
+	// access ordered, so iteration starts at the least recently used entry
+	private final LinkedHashMap<String, Entry> entries
+			= new LinkedHashMap<String, Entry>(16, 0.75f, true);
+	// mapped rather than on the heap, so they don't count toward the bound;
+	// a null value means there's no usable pack
+	private final Map<String, ImagePack> packs = new HashMap<String, ImagePack>();
+
+	/**
+	 * Initializes an ImageAssetCache with the default size bound.
+	 */
+	public ImageAssetCache()
+	{
+		this(DEFAULT_MAX_BYTES);
+	}
+	/**
+	 * Initializes an ImageAssetCache.
+	 * @param maxBytes The most pixel bytes to keep cached.
+	 */
+	public ImageAssetCache(long maxBytes)
+	{
+		this.maxBytes = maxBytes;
+
+		final AtomicInteger threadCount = new AtomicInteger();
+		executor = Executors.newFixedThreadPool(DECODE_THREADS, runnable ->
+		{
+			Thread thread = new Thread(runnable, "image-decoder-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			thread.setPriority(Thread.NORM_PRIORITY - 1);
+			return thread;
+		});
+	}
+
+	/**
+	 * Gets an image at full resolution, decoding it in the background if it
+	 * isn't cached.
+	 * @param path The path of the image file.
+	 * @return A future that completes with the decoded image.
+	 */
+	public CompletableFuture<BufferedImage> load(String path)
+	{
+		return loadForDisplay(path, 0, 0, 1);
+	}
+	/**
+	 * Gets an image that is at least large enough to fill the given area when
+	 * split into a grid. Large images are subsampled while decoding, which saves
+	 * decode time and memory. A cached image is only decoded again if it is
+	 * smaller than the area now needed.
+	 * @param path The path of the image file.
+	 * @param width The width the image will be displayed at, in pixels, or 0 for
+	 * full resolution.
+	 * @param height The height the image will be displayed at, in pixels, or 0
+	 * for full resolution.
+	 * @param gridSize The number of rows and columns the image will be split into.
+	 * @return A future that completes with the decoded image.
+	 */
+	public synchronized CompletableFuture<BufferedImage> loadForDisplay(String path,
+			int width, int height, int gridSize)
+	{
+		// tiles drop any remainder, so every tile needs its full share of pixels
+		int targetWidth = roundUp(width, gridSize);
+		int targetHeight = roundUp(height, gridSize);
+
+		Entry entry = entries.get(path);
+		if (entry != null && entry.covers(targetWidth, targetHeight))
+			return entry.image;
+
+		if (entry != null)
+		{
+			totalBytes -= entry.bytes;
+			entries.remove(path);
+		}
+
+		Entry decoding = new Entry(targetWidth, targetHeight);
+		CompletableFuture<BufferedImage> image = CompletableFuture.supplyAsync(
+				() -> decode(path, decoding), executor);
+		decoding.image = image;
+		entries.put(path, decoding);
+
+		image.whenComplete((decoded, error) -> decoded(path, decoding, decoded));
+
+		return image;
+	}
+
+	/**
+	 * Gets the image pack that sits next to an image file, opening it the first
+	 * time it's asked for and keeping it open after that.
+	 * @param path The path of the image file.
+	 * @return The image pack, or null if there isn't a usable one.
+	 * @see ImagePack#find(String)
+	 */
+	public ImagePack findPack(String path)
+	{
+		// a lock of its own, so mapping a pack never holds up image loads
+		synchronized (packs)
+		{
+			if (!packs.containsKey(path))
+				packs.put(path, ImagePack.find(path));
+			return packs.get(path);
+		}
+	}
+
+	/**
+	 * Gets the number of pixel bytes currently cached.
+	 * @return The cached bytes.
+	 */
+	public synchronized long getCachedBytes()
+	{
+		return totalBytes;
+	}
+	/**
+	 * Gets the most pixel bytes that will be kept cached.
+	 * @return The size bound in bytes.
+	 */
+	public long getMaxBytes()
+	{
+		return maxBytes;
+	}
+
+	/**
+	 * Throws away all cached images and image packs.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		totalBytes = 0;
+		synchronized (packs)
+		{
+			packs.clear();
+		}
+	}
+
+	private synchronized void decoded(String path, Entry entry, BufferedImage image)
+	{
+		// the entry may have been replaced or cleared while decoding
+		if (entries.get(path) != entry)
+			return;
+
+		if (image == null)
+		{
+			// don't remember failures so the file can be fixed and retried
+			entries.remove(path);
+			return;
+		}
+
+		entry.bytes = getByteCount(image);
+		totalBytes += entry.bytes;
+		evict(entry);
+	}
+
+	private void evict(Entry keep)
+	{
+		Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+		while (totalBytes > maxBytes && iterator.hasNext())
+		{
+			Entry entry = iterator.next().getValue();
+			if (entry != keep && entry.image.isDone())
+			{
+				totalBytes -= entry.bytes;
+				iterator.remove();
+			}
+		}
+	}
+
+	/**
+	 * Decodes an image file for an entry, subsampling it as much as possible
+	 * while keeping it at least as large as the entry's target size, and notes
+	 * in the entry whether it was decoded at full resolution.
+	 * @param path The path of the image file.
+	 * @param entry The entry.
+	 * @return The decoded image.
+	 */
+	private BufferedImage decode(String path, Entry entry)
+	{
+		try (ImageInputStream input = ImageIO.createImageInputStream(new File(path)))
+		{
+			if (input == null)
+				throw new IOException("Can't open " + path);
+
+			Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+			if (!readers.hasNext())
+				throw new IOException("No image reader for " + path);
+
+			ImageReader reader = readers.next();
+			try
+			{
+				reader.setInput(input, true, true);
+
+				int subsampling = getSubsampling(reader.getWidth(0), reader.getHeight(0),
+						entry.targetWidth, entry.targetHeight);
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+				BufferedImage image = reader.read(0, param);
+				entry.fullResolution = subsampling == 1;
+				return image;
+			}
+			finally
+			{
+				reader.dispose();
+			}
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Gets the largest subsampling factor that keeps an image at least as large
+	 * as the target size.
+	 * @param sourceWidth The width of the image.
+	 * @param sourceHeight The height of the image.
+	 * @param targetWidth The smallest width needed, or 0 for full resolution.
+	 * @param targetHeight The smallest height needed, or 0 for full resolution.
+	 * @return The subsampling factor, at least 1.
+	 */
+	public static int getSubsampling(int sourceWidth, int sourceHeight,
+			int targetWidth, int targetHeight)
+	{
+		if (targetWidth <= 0 || targetHeight <= 0)
+			return 1;
+		return Math.max(1, Math.min(sourceWidth / targetWidth, sourceHeight / targetHeight));
+	}
+
+	private static int roundUp(int value, int multiple)
+	{
+		if (value <= 0 || multiple <= 1)
+			return Math.max(value, 0);
+		return (value + multiple - 1) / multiple * multiple;
+	}
+
+	/**
+	 * Estimates the memory used by an image's pixels.
+	 * @param image The image.
+	 * @return The number of bytes.
+	 */
+	public static long getByteCount(BufferedImage image)
+	{
+		DataBuffer buffer = image.getRaster().getDataBuffer();
+		return (long) buffer.getSize() * buffer.getNumBanks()
+				* DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+	}
+
+	private static class Entry
+	{
+		CompletableFuture<BufferedImage> image;
+		final int targetWidth;
+		final int targetHeight;
+		// set by the decoder before the image completes
+		volatile boolean fullResolution;
+		long bytes;
+
+		Entry(int targetWidth, int targetHeight)
+		{
+			this.targetWidth = targetWidth;
+			this.targetHeight = targetHeight;
+		}
+
+		/**
+		 * Checks whether this entry is large enough for a target size.
+		 */
+		boolean covers(int width, int height)
+		{
+			// full resolution covers every size, including sizes larger than the
+			// image itself, which are decoded at full resolution too
+			if (targetWidth == 0 || targetHeight == 0 || fullResolution)
+				return true;
+			if (width == 0 || height == 0)
+				return false;
+
+			BufferedImage decoded = image.getNow(null);
+			if (decoded != null)
+				return decoded.getWidth() >= width && decoded.getHeight() >= height;
+			return targetWidth >= width && targetHeight >= height;
+		}
+	}
+
+}
@@ -0,0 +1,217 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A pre-tiled picture read straight from a memory-mapped image pack file.
+ * <p>
+ * A pack holds one picture already scaled and sliced for each grid size it
+ * supports, so starting a game needs no JPEG decode and no slicing. Packs are
+ * written by {@link ImagePackBuilder}. The file is big-endian and laid out as:
+ * <pre>
+ * int    magic ('MGPK')
+ * int    version
+ * int    number of grids
+ * for each grid:
+ *   int  grid size (rows and columns)
+ *   int  tile width
+ *   int  tile height
+ *   long offset of the first tile's pixels
+ * for each grid, for each tile, left to right then top to bottom:
+ *   int  RGB pixels, row by row
+ * </pre>
+ */
+public class ImagePack
+{
+
+	static final int MAGIC = 0x4D47504B; // "MGPK"
+	static final int VERSION = 1;
+	static final String EXTENSION = ".mgpk";
+
+	// grid size, tile width, tile height, and offset
+	private static final int GRID_HEADER_BYTES = 4 + 4 + 4 + 8;
+
+	private final MappedByteBuffer buffer;
+	private final int[] gridSizes;
+	private final int[] tileWidths;
+	private final int[] tileHeights;
+	private final long[] offsets;
+
+	private ImagePack(MappedByteBuffer buffer) throws IOException
+	{
+		this.buffer = buffer;
+
+		try
+		{
+			if (buffer.getInt() != MAGIC)
+				throw new IOException("Not an image pack");
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException("Unsupported image pack version " + version);
+
+			int gridCount = buffer.getInt();
+			if (gridCount < 0 || gridCount > buffer.remaining() / GRID_HEADER_BYTES)
+				throw new IOException("Image pack has a bad grid count " + gridCount);
+
+			gridSizes = new int[gridCount];
+			tileWidths = new int[gridCount];
+			tileHeights = new int[gridCount];
+			offsets = new long[gridCount];
+			for (int i = 0; i < gridCount; ++i)
+			{
+				gridSizes[i] = buffer.getInt();
+				tileWidths[i] = buffer.getInt();
+				tileHeights[i] = buffer.getInt();
+				offsets[i] = buffer.getLong();
+				checkGrid(i, buffer.capacity());
+			}
+		}
+		catch (BufferUnderflowException e)
+		{
+			throw new IOException("Image pack header is truncated");
+		}
+	}
+
+	/**
+	 * Checks that a grid's sizes are positive and its pixels lie inside the file.
+	 */
+	private void checkGrid(int index, int capacity) throws IOException
+	{
+		if (gridSizes[index] <= 0 || tileWidths[index] <= 0 || tileHeights[index] <= 0)
+			throw new IOException("Image pack has a bad grid size or tile size");
+		if (offsets[index] < 0 || offsets[index] > capacity)
+			throw new IOException("Image pack has a bad tile offset " + offsets[index]);
+
+		long end;
+		try
+		{
+			long tiles = Math.multiplyExact((long) gridSizes[index], (long) gridSizes[index]);
+			long pixels = Math.multiplyExact((long) tileWidths[index], (long) tileHeights[index]);
+			end = Math.addExact(offsets[index], Math.multiplyExact(4L, Math.multiplyExact(tiles, pixels)));
+		}
+		catch (ArithmeticException e)
+		{
+			throw new IOException("Image pack grid is too big");
+		}
+		if (end > capacity)
+			throw new IOException("Image pack is truncated");
+	}
+
+	/**
+	 * Opens an image pack by mapping it into memory.
+	 * @param file The pack file.
+	 * @return The image pack.
+	 * @throws IOException If the file can't be read or isn't a valid pack.
+	 */
+	public static ImagePack open(File file) throws IOException
+	{
+		try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+				FileChannel channel = raf.getChannel())
+		{
+			// the mapping stays valid after the channel is closed
+			return new ImagePack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	/**
+	 * Opens the image pack that sits next to an image file, if there is one.
+	 * For example, "image1.jpg" has the pack "image1.mgpk".
+	 * @param imagePath The path of the image file.
+	 * @return The image pack, or null if there isn't a usable one.
+	 */
+	public static ImagePack find(String imagePath)
+	{
+		File file = getPackFile(imagePath);
+		if (!file.isFile())
+			return null;
+
+		try
+		{
+			return open(file);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Ignoring image pack " + file + ": " + e.getMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Gets the pack file that goes with an image file.
+	 * @param imagePath The path of the image file.
+	 * @return The pack file.
+	 */
+	public static File getPackFile(String imagePath)
+	{
+		int dot = imagePath.lastIndexOf('.');
+		if (dot > imagePath.lastIndexOf(File.separatorChar))
+			imagePath = imagePath.substring(0, dot);
+		return new File(imagePath + EXTENSION);
+	}
+
+	/**
+	 * Checks whether the pack has tiles for a grid size.
+	 * @param size The number of rows and columns.
+	 * @return Whether the grid size is in the pack.
+	 */
+	public boolean hasGrid(int size)
+	{
+		return indexOf(size) >= 0;
+	}
+	/**
+	 * Gets the grid sizes in the pack.
+	 * @return The grid sizes.
+	 */
+	public int[] getGridSizes()
+	{
+		return gridSizes.clone();
+	}
+
+	/**
+	 * Builds the tiles for a grid size from the mapped pixels.
+	 * @param size The number of rows and columns.
+	 * @return The tiles, left to right then top to bottom.
+	 */
+	public BufferedImage[] getTiles(int size)
+	{
+		int index = indexOf(size);
+		if (index < 0)
+			throw new IllegalArgumentException("No " + size + "x" + size + " grid in image pack");
+
+		int width = tileWidths[index];
+		int height = tileHeights[index];
+		int[] pixels = new int[width * height];
+
+		// duplicate so concurrent readers don't share a position
+		ByteBuffer view = buffer.duplicate();
+		view.position((int) offsets[index]);
+		IntBuffer source = view.slice().asIntBuffer();
+
+		BufferedImage[] tiles = new BufferedImage[size * size];
+		for (int i = 0; i < tiles.length; ++i)
+		{
+			source.get(pixels);
+
+			// setDataElements copies, which keeps the tile eligible for acceleration
+			tiles[i] = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			tiles[i].getRaster().setDataElements(0, 0, width, height, pixels);
+		}
+
+		RenderMetrics.get().recordTilesCreated(tiles.length);
+		return tiles;
+	}
+
+	private int indexOf(int size)
+	{
+		for (int i = 0; i < gridSizes.length; ++i)
+			if (gridSizes[i] == size)
+				return i;
+		return -1;
+	}
+
+}
@@ -0,0 +1,164 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Command line tool that writes an {@link ImagePack} for each image given.
+ * <p>
+ * Usage: {@code java ImagePackBuilder [-board WIDTHxHEIGHT] [-grids 2,3,4] image.jpg...}
+ * <p>
+ * Each image is scaled to the board size once per grid size, so that the tiles
+ * divide the board evenly, and the pack is written next to the image.
+ */
+public class ImagePackBuilder
+{
+
+	private static final int[] DEFAULT_GRID_SIZES = { 2, 3, 4 };
+
+	private static final int HEADER_BYTES = 12;
+	private static final int DIRECTORY_ENTRY_BYTES = 20;
+
+	private ImagePackBuilder() { }
+
+	public static void main(String[] args)
+	{
+		// pre-scale to the board the viewer opens with, so its tiles are used as they are
+		int boardWidth = MathGameViewer.DEFAULT_BOARD_WIDTH;
+		int boardHeight = MathGameViewer.DEFAULT_BOARD_HEIGHT;
+		int[] gridSizes = DEFAULT_GRID_SIZES;
+
+		int i = 0;
+		try
+		{
+			for (; i < args.length && args[i].startsWith("-"); ++i)
+			{
+				if (args[i].equals("-board") && i + 1 < args.length)
+				{
+					String[] dimensions = args[++i].split("x");
+					boardWidth = Integer.parseInt(dimensions[0]);
+					boardHeight = Integer.parseInt(dimensions[1]);
+				}
+				else if (args[i].equals("-grids") && i + 1 < args.length)
+				{
+					String[] sizes = args[++i].split(",");
+					gridSizes = new int[sizes.length];
+					for (int j = 0; j < sizes.length; ++j)
+						gridSizes[j] = Integer.parseInt(sizes[j]);
+				}
+				else
+				{
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+				}
+			}
+		}
+		catch (RuntimeException e)
+		{
+			System.err.println(e.getMessage());
+			i = args.length;
+		}
+
+		if (i >= args.length)
+		{
+			System.err.println("Usage: java ImagePackBuilder [-board WIDTHxHEIGHT] [-grids 2,3,4] image.jpg...");
+			System.exit(1);
+		}
+
+		for (; i < args.length; ++i)
+		{
+			File pack = ImagePack.getPackFile(args[i]);
+			try
+			{
+				BufferedImage image = ImageIO.read(new File(args[i]));
+				if (image == null)
+					throw new IOException("No image reader for " + args[i]);
+
+				write(pack, image, boardWidth, boardHeight, gridSizes);
+				System.out.println("Wrote " + pack);
+			}
+			catch (IOException e)
+			{
+				System.err.println("Couldn't build " + pack + ": " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Writes an image pack.
+	 * @param file The pack file to write.
+	 * @param image The picture.
+	 * @param boardWidth The width of the board the tiles will fill.
+	 * @param boardHeight The height of the board the tiles will fill.
+	 * @param gridSizes The grid sizes to store tiles for.
+	 * @throws IOException If the file can't be written.
+	 */
+	public static void write(File file, BufferedImage image, int boardWidth, int boardHeight,
+			int[] gridSizes) throws IOException
+	{
+		if (gridSizes.length == 0)
+			throw new IllegalArgumentException("An image pack needs at least one grid size");
+
+		long[] offsets = new long[gridSizes.length];
+		long offset = HEADER_BYTES + (long) DIRECTORY_ENTRY_BYTES * gridSizes.length;
+		for (int i = 0; i < gridSizes.length; ++i)
+		{
+			offsets[i] = offset;
+			offset += 4L * (boardWidth / gridSizes[i]) * (boardHeight / gridSizes[i])
+					* gridSizes[i] * gridSizes[i];
+		}
+		if (offset > Integer.MAX_VALUE)
+			throw new IOException("Image pack would be too large to map");
+
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw");
+				FileChannel channel = raf.getChannel())
+		{
+			channel.truncate(0);
+
+			ByteBuffer header = ByteBuffer.allocate((int) offsets[0]);
+			header.putInt(ImagePack.MAGIC);
+			header.putInt(ImagePack.VERSION);
+			header.putInt(gridSizes.length);
+			for (int i = 0; i < gridSizes.length; ++i)
+			{
+				header.putInt(gridSizes[i]);
+				header.putInt(boardWidth / gridSizes[i]);
+				header.putInt(boardHeight / gridSizes[i]);
+				header.putLong(offsets[i]);
+			}
+			header.flip();
+			writeFully(channel, header);
+
+			for (int size : gridSizes)
+			{
+				int tileWidth = boardWidth / size;
+				int tileHeight = boardHeight / size;
+
+				// scale to an exact multiple of the tile size so nothing is dropped
+				BufferedImage board = ScaledImageCache.scale(image, tileWidth * size, tileHeight * size);
+				BufferedImage[] tiles = TileSlicer.split(board, size, size, null);
+
+				int[] pixels = new int[tileWidth * tileHeight];
+				ByteBuffer tileBytes = ByteBuffer.allocate(pixels.length * 4);
+				for (BufferedImage tile : tiles)
+				{
+					tile.getRGB(0, 0, tileWidth, tileHeight, pixels, 0, tileWidth);
+
+					tileBytes.clear();
+					tileBytes.asIntBuffer().put(pixels);
+					writeFully(channel, tileBytes);
+				}
+			}
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+}
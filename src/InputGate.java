@@ -0,0 +1,190 @@
+/**
+ * Lets mouse and key input through to a game's panels or holds it back, such
+ * as while a result is being shown. Panels check the gate instead of having
+ * their listeners removed and added again, so locking and checking are
+ * constant time however big the board is.
+ * <p>
+ * A lock can be timed, so input comes back on its own if whatever was meant
+ * to unlock the gate never does. How long the gate stays locked is recorded.
+ * A gate can also be closed for good, such as when a timed game runs out, so
+ * results still being shown can't unlock it. The gate is used on the event
+ * dispatch thread only.
+ */
+public class InputGate
+{
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final long NO_END = Long.MAX_VALUE;
+	// how long after a result is due input comes back if its timer never runs
+	private static final long LOCK_MARGIN = 500;
+
+	private final LatencyHistogram lockTimes = new LatencyHistogram();
+
+	private boolean locked;
+	private boolean closed;
+	private long lockStartNanos;
+	private long lockEndNanos;
+	private long blockedCount;
+
+	/**
+	 * Locks the gate until it is unlocked.
+	 */
+	public void lock()
+	{
+		lock(System.nanoTime(), NO_END);
+	}
+	/**
+	 * Locks the gate until it is unlocked or the time is up. Locking a gate
+	 * that is already locked moves the end of the window.
+	 * @param millis The most time to stay locked, in milliseconds.
+	 */
+	public void lockFor(long millis)
+	{
+		long now = System.nanoTime();
+		lock(now, now + millis * NANOS_PER_MILLI);
+	}
+	/**
+	 * Unlocks the gate, unless it is closed.
+	 */
+	public void unlock()
+	{
+		if (locked && !closed)
+			open(Math.min(System.nanoTime(), lockEndNanos));
+	}
+	/**
+	 * Locks the gate until it is reset, whatever unlocks it in the meantime.
+	 */
+	public void close()
+	{
+		lock();
+		closed = true;
+	}
+	/**
+	 * Opens the gate, even if it is closed, such as when a new game starts.
+	 */
+	public void reset()
+	{
+		closed = false;
+		unlock();
+	}
+	/**
+	 * Gets whether the gate is closed until it is reset.
+	 * @return Whether the gate is closed.
+	 */
+	public boolean isClosed()
+	{
+		return closed;
+	}
+
+	/**
+	 * Gets whether input can go through.
+	 * @return Whether the gate is open.
+	 */
+	public boolean isOpen()
+	{
+		if (!locked)
+			return true;
+
+		// a timed window that has run out opens the gate
+		if (lockEndNanos != NO_END && System.nanoTime() - lockEndNanos >= 0)
+		{
+			open(lockEndNanos);
+			return true;
+		}
+		return false;
+	}
+	/**
+	 * Checks whether an input event can go through, counting it if not.
+	 * @return Whether the gate is open.
+	 */
+	public boolean admit()
+	{
+		if (isOpen())
+			return true;
+
+		++blockedCount;
+		return false;
+	}
+
+	/**
+	 * Shows the result of an answer just submitted on a tile, holding input back
+	 * while it is shown. A correct answer is revealed after
+	 * {@link GameModel#CORRECT_DELAY}, and a wrong one can be tried again after
+	 * {@link GameModel#INCORRECT_DELAY}. The gate stays locked a little longer
+	 * than the delay if the task never runs.
+	 * @param model The game.
+	 * @param tile The tile.
+	 * @param result What submitting the answer gave.
+	 * @param scheduler The scheduler to run the task on.
+	 * @param revealed Run once the tile shows its image, such as to fade it in.
+	 * @param retried Run once the tile can be answered again, such as to repaint it.
+	 * @return The task, which can be cancelled, or null if the result needs no
+	 * waiting.
+	 */
+	public GameScheduler.Handle showResult(GameModel model, int tile, ProblemState result,
+			GameScheduler scheduler, Runnable revealed, Runnable retried)
+	{
+		switch (result)
+		{
+			case CORRECT:
+				return holdFor(GameModel.CORRECT_DELAY, scheduler, () ->
+				{
+					model.reveal(tile);
+					revealed.run();
+				});
+			case INCORRECT:
+				return holdFor(GameModel.INCORRECT_DELAY, scheduler, () ->
+				{
+					// start the clock again
+					model.retry(tile, System.nanoTime());
+					retried.run();
+				});
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * Gets how long the gate was locked each time, ending with the last unlock.
+	 * @return The lock time histogram.
+	 */
+	public LatencyHistogram getLockTimes()
+	{
+		return lockTimes;
+	}
+	/**
+	 * Gets the number of input events held back.
+	 * @return The number blocked.
+	 */
+	public long getBlockedCount()
+	{
+		return blockedCount;
+	}
+
+	private GameScheduler.Handle holdFor(long delay, GameScheduler scheduler, Runnable task)
+	{
+		lockFor(delay + LOCK_MARGIN);
+		return scheduler.schedule(() ->
+		{
+			task.run();
+			unlock();
+		}, delay);
+	}
+
+	private void lock(long now, long endNanos)
+	{
+		if (!locked)
+		{
+			locked = true;
+			lockStartNanos = now;
+		}
+		lockEndNanos = endNanos;
+	}
+
+	private void open(long endNanos)
+	{
+		locked = false;
+		lockTimes.record(Math.max(endNanos - lockStartNanos, 0));
+	}
+
+}
@@ -0,0 +1,127 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations with fixed buckets, cheap enough to record every
+ * paint. Each power of two is split into eight buckets, so a percentile is
+ * within 12.5% of the true value, and any duration fits without resizing.
+ * Recording is thread safe and never allocates.
+ */
+public class LatencyHistogram
+{
+
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder totalNanos = new LongAdder();
+	private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Records one duration.
+	 * @param nanos The duration in nanoseconds. Negative durations count as 0.
+	 */
+	public void record(long nanos)
+	{
+		if (nanos < 0)
+			nanos = 0;
+
+		counts.incrementAndGet(indexOf(nanos));
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	/**
+	 * Gets the number of durations recorded.
+	 * @return The count.
+	 */
+	public long getCount()
+	{
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; ++i)
+			count += counts.get(i);
+		return count;
+	}
+	/**
+	 * Gets the mean duration.
+	 * @return The mean in nanoseconds, or 0 if nothing was recorded.
+	 */
+	public double getMeanNanos()
+	{
+		long count = getCount();
+		return count == 0 ? 0 : (double) totalNanos.sum() / count;
+	}
+	/**
+	 * Gets the longest duration.
+	 * @return The maximum in nanoseconds.
+	 */
+	public long getMaxNanos()
+	{
+		return maxNanos.get();
+	}
+	/**
+	 * Gets the duration that the given fraction of durations are at or under,
+	 * rounded up to the top of its bucket.
+	 * @param fraction The fraction, such as 0.99.
+	 * @return The percentile in nanoseconds, or 0 if nothing was recorded.
+	 */
+	public long getPercentileNanos(double fraction)
+	{
+		long[] snapshot = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; ++i)
+		{
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if (count == 0)
+			return 0;
+
+		long rank = Math.max(1, (long) Math.ceil(fraction * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; ++i)
+		{
+			seen += snapshot[i];
+			if (seen >= rank)
+				return Math.min(upperBoundOf(i), getMaxNanos());
+		}
+		return getMaxNanos();
+	}
+
+	/**
+	 * Clears all recorded durations. Durations recorded at the same time may be
+	 * partly kept.
+	 */
+	public void reset()
+	{
+		for (int i = 0; i < BUCKET_COUNT; ++i)
+			counts.set(i, 0);
+		totalNanos.reset();
+		maxNanos.reset();
+	}
+
+	private static int indexOf(long nanos)
+	{
+		if (nanos < SUB_BUCKETS)
+			return (int) nanos;
+
+		// the top bit picks the power of two and the next bits pick the sub-bucket
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long upperBoundOf(int index)
+	{
+		if (index < SUB_BUCKETS)
+			return index;
+
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = index % SUB_BUCKETS;
+		long lowerBound = (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+		return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+	}
+
+}
@@ -1,14 +1,78 @@
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.concurrent.CompletableFuture;
+
 import javax.swing.JFrame;
+import javax.swing.JRootPane;
+import javax.swing.SwingUtilities;
 
 public class MathGame
 {
-	
+
+	/**
+	 * Starts the game. The window is built on the event dispatch thread behind
+	 * a splash while the first game's images, problem tables, and font preload
+	 * on background threads.
+	 * @param args [-timings] to log how long each startup phase took,
+	 * [-exitAfterStartup] to quit once the first frame is painted and
+	 * preloading is done, such as to train a class data sharing archive
+	 */
 	public static void main(String[] args)
 	{
-		MathGameViewer viewer = new MathGameViewer();
-		viewer.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-		viewer.setLocationRelativeTo(null);
-		viewer.setVisible(true);
+		StartupTimer timer = StartupTimer.get();
+		boolean exitAfterStartup = false;
+
+		for (String arg : args)
+		{
+			switch (arg)
+			{
+				case "-timings":
+					timer.setLogging(true);
+					break;
+				case "-exitAfterStartup":
+					exitAfterStartup = true;
+					break;
+				default:
+					System.err.println("Unknown option " + arg);
+					System.err.println("Usage: java MathGame [-timings] [-exitAfterStartup]");
+					System.exit(1);
+			}
+		}
+		timer.mark("main");
+
+		ImageAssetCache imageAssets = new ImageAssetCache();
+		CompletableFuture<Void> preload = StartupPreloader.start(imageAssets);
+
+		boolean exit = exitAfterStartup;
+		SwingUtilities.invokeLater(() ->
+		{
+			timer.mark("event thread");
+			StartupSplash splash = StartupSplash.show();
+			timer.mark("splash");
+
+			splash.setStatus("Building window...");
+			MathGameViewer viewer = new MathGameViewer(imageAssets);
+			viewer.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+			viewer.setLocationRelativeTo(null);
+			timer.mark("window built");
+
+			viewer.addWindowListener(new WindowAdapter()
+			{
+				@Override
+				public void windowOpened(WindowEvent e)
+				{
+					// paint now so the first frame is really on screen before the splash goes
+					JRootPane rootPane = viewer.getRootPane();
+					rootPane.paintImmediately(0, 0, rootPane.getWidth(), rootPane.getHeight());
+					timer.mark("first frame");
+					splash.close();
+
+					if (exit)
+						preload.thenRun(() -> System.exit(0));
+				}
+			});
+			viewer.setVisible(true);
+		});
 	}
-	
-}
\ No newline at end of file
+
+}
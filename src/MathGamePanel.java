@@ -2,6 +2,9 @@ import java.awt.image.BufferedImage;
 import java.awt.GridLayout;
 
 import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.JPanel;
 
@@ -26,21 +29,56 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	
 	private static final long serialVersionUID = 1L;
 	
+	/**
+	 * The most tiles a board has with a problem panel each. Bigger boards are
+	 * always drawn by one TileGridView.
+	 */
+	public static final int MAX_PANEL_TILES = 144;
+	/**
+	 * The property fired as a timed game's clock counts down, with the time
+	 * left in milliseconds, rounded up to a tenth of a second. It is -1 when
+	 * the game isn't timed.
+	 */
+	public static final String TIME_LEFT_PROPERTY = "timeLeft";
+	
 	private ArrayList<ProblemType> types;
 	private int size;
+	private int rows;
+	private boolean virtualized;
 	private int numFamily;
 	private BufferedImage image;
+	private CompletableFuture<BufferedImage> pendingImage;
+	private ImagePack imagePack;
 	
-	private int completeCount;
-	private ArrayList<String> problems;
-	private ArrayList<Boolean> results;
-	private ArrayList<Long> nanoTimes;
-	private ArrayList<Integer> tryCounts;
+	private GameModel model;
+	private GridIndex grid;
+	private GameResults results;
 	
 	private ArrayList<MathProblemPanel> problemPanels = new ArrayList<MathProblemPanel>();
+	private TileGridView gridView;
+	private GameCommandQueue commands = new GameCommandQueue();
+	private GameScheduler scheduler = new GameScheduler(commands);
+	private InputGate inputGate = new InputGate();
+	private CaretClock caretClock = new CaretClock(scheduler);
+	private AnimationClock animationClock = new AnimationClock(scheduler);
+	private AnimationClock.Animation countdown = this::countDown;
+	private long timeLimit;
+	private long deadlineNanos;
+	private long timeLeftShown = -1;
+	private boolean timeUp;
+	private ProblemGenerator problemGenerator;
+	private boolean adaptive;
+	private FactIndex factIndex = new FactIndex();
+	private SplittableRandom seeds = new SplittableRandom();
+	private long gameSeed;
+	private SessionLog sessionLog;
 	
-	private ArrayList<GameCompleteListener> gameCompleteListeners
-			= new ArrayList<GameCompleteListener>();
+	private EventPipeline<GameCompleteListener, GameCompleteEvent> gameCompleteListeners
+			= new EventPipeline<GameCompleteListener, GameCompleteEvent>(
+					"game-events", GameCompleteListener::gameCompleted);
+	private EventPipeline<ProblemPanelListener, ProblemPanelEvent> problemPanelListeners
+			= new EventPipeline<ProblemPanelListener, ProblemPanelEvent>(
+					"game-problem-events", ProblemPanelListener::problemCompleted);
 	
 	/**
 	 * Initializes a MathGamePanel with no problem panels.
@@ -57,6 +95,7 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	{
 		this.types = types;
 		this.size = size;
+		this.rows = size;
 		this.numFamily = numFamily;
 		this.image = image;
 		
@@ -79,6 +118,42 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	{
 		return size;
 	}
+	/**
+	 * Gets the number of rows of the board, which is the same as the size
+	 * unless the board was started with {@link #startNewBoard}.
+	 * @return The number of rows.
+	 */
+	public int getGridRows()
+	{
+		return rows;
+	}
+	/**
+	 * Gets whether boards are drawn by one TileGridView rather than a problem
+	 * panel per tile.
+	 * @return Whether boards are virtualized.
+	 */
+	public boolean isVirtualized()
+	{
+		return virtualized;
+	}
+	/**
+	 * Sets whether boards are drawn by one TileGridView rather than a problem
+	 * panel per tile, starting with the next game. Boards of more than
+	 * {@link #MAX_PANEL_TILES} tiles always are.
+	 * @param virtualized Whether boards are virtualized.
+	 */
+	public void setVirtualized(boolean virtualized)
+	{
+		this.virtualized = virtualized;
+	}
+	/**
+	 * Gets the view drawing the current board, if it is virtualized.
+	 * @return The view, or null if each tile has a problem panel.
+	 */
+	public TileGridView getGridView()
+	{
+		return gridView;
+	}
 	/**
 	 * Gets the problem type(s) of the panel.
 	 * @return The problem type(s).
@@ -101,48 +176,372 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	 */
 	public void setimage(BufferedImage image)
 	{
+		this.pendingImage = null;
+		this.imagePack = null;
+		this.image = image;
+		
+		if (gridView != null)
+		{
+			gridView.setImage(image);
+			return;
+		}
+		
 		BufferedImage[] subImages = splitImage();
 		for (int i = 0; i < problemPanels.size(); ++i)
 			problemPanels.get(i).setImage(subImages[i]);
 	}
+	/**
+	 * Gets the problem generator used for new games.
+	 * @return The generator, or null if a built-in one for the problem types is
+	 * used.
+	 */
+	public ProblemGenerator getProblemGenerator()
+	{
+		return problemGenerator;
+	}
+	/**
+	 * Sets the problem generator used for new games.
+	 * @param problemGenerator The generator, or null to use a built-in one for
+	 * the problem types.
+	 * @see #setAdaptive(boolean)
+	 */
+	public void setProblemGenerator(ProblemGenerator problemGenerator)
+	{
+		this.problemGenerator = problemGenerator;
+	}
+	/**
+	 * Gets whether new games focus on the facts that are answered slowly or
+	 * wrong, when no problem generator is set.
+	 * @return Whether new games are adaptive.
+	 */
+	public boolean isAdaptive()
+	{
+		return adaptive;
+	}
+	/**
+	 * Sets whether new games focus on the facts in the fact index that are
+	 * answered slowly or wrong, when no problem generator is set. Adaptive
+	 * boards depend on the fact index as well as the seed. Off by default.
+	 * @param adaptive Whether new games are adaptive.
+	 */
+	public void setAdaptive(boolean adaptive)
+	{
+		this.adaptive = adaptive;
+	}
+	/**
+	 * Gets the history of how fast and how accurately each fact is answered,
+	 * which every completed problem is added to.
+	 * @return The fact index.
+	 */
+	public FactIndex getFactIndex()
+	{
+		return factIndex;
+	}
+	/**
+	 * Seeds the boards of all following games, so a run of games can be repeated.
+	 * @param seed The seed.
+	 */
+	public void setSeed(long seed)
+	{
+		seeds = new SplittableRandom(seed);
+	}
+	/**
+	 * Gets the seed the current board was generated from. Unless the game is
+	 * adaptive, passing it to the problem generator with the same number family
+	 * and size makes the same board. An adaptive board also depends on the fact
+	 * index, so it is only made again from the same history.
+	 * @return The seed.
+	 * @see #setAdaptive(boolean)
+	 */
+	public long getGameSeed()
+	{
+		return gameSeed;
+	}
+	/**
+	 * Gets the log every answered problem is written to.
+	 * @return The session log, or null if problems aren't logged.
+	 */
+	public SessionLog getSessionLog()
+	{
+		return sessionLog;
+	}
+	/**
+	 * Sets the log every answered problem is written to.
+	 * @param sessionLog The session log, or null to stop logging.
+	 */
+	public void setSessionLog(SessionLog sessionLog)
+	{
+		this.sessionLog = sessionLog;
+	}
+	/**
+	 * Gets the results of the current game so far.
+	 * @return The results, or null before the first game.
+	 */
+	public GameResults getResults()
+	{
+		return results;
+	}
+	/**
+	 * Gets the hovered and active tiles of the current game.
+	 * @return The grid index, or null before the first game.
+	 */
+	public GridIndex getGridIndex()
+	{
+		return grid;
+	}
+	/**
+	 * Gets the rules and state of the current game.
+	 * @return The game model, or null before the first game.
+	 */
+	public GameModel getModel()
+	{
+		return model;
+	}
+	/**
+	 * Gets the queue that changes to the game's state go through. Post to it to
+	 * change the game from another thread.
+	 * @return The command queue.
+	 */
+	public GameCommandQueue getCommandQueue()
+	{
+		return commands;
+	}
+	/**
+	 * Gets the gate that holds back input to the problem panels while a
+	 * result is shown.
+	 * @return The input gate.
+	 */
+	public InputGate getInputGate()
+	{
+		return inputGate;
+	}
+	/**
+	 * Gets the render loop that animates reveals and the time-attack countdown.
+	 * @return The animation clock.
+	 */
+	public AnimationClock getAnimationClock()
+	{
+		return animationClock;
+	}
+	/**
+	 * Gets how long each game may take.
+	 * @return The time limit in milliseconds, or 0 if games aren't timed.
+	 */
+	public long getTimeLimit()
+	{
+		return timeLimit;
+	}
+	/**
+	 * Sets how long each game may take, starting with the next game. When the
+	 * time is up, input is held back and the game is completed with the
+	 * results so far.
+	 * @param timeLimit The time limit in milliseconds, or 0 for no limit.
+	 */
+	public void setTimeLimit(long timeLimit)
+	{
+		this.timeLimit = Math.max(0, timeLimit);
+	}
+	/**
+	 * Gets the time left in the current game.
+	 * @return The time left in milliseconds, or -1 if the game isn't timed.
+	 */
+	public long getTimeLeft()
+	{
+		if (deadlineNanos == 0)
+			return -1;
+		return timeUp ? 0 : Math.max(0,
+				TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+	}
+	/**
+	 * Gets whether the current game ran out of time.
+	 * @return Whether the time is up.
+	 */
+	public boolean isTimeUp()
+	{
+		return timeUp;
+	}
+	/**
+	 * Gets the scheduler that runs the timers for all the problem panels.
+	 * @return The scheduler.
+	 */
+	public GameScheduler getScheduler()
+	{
+		return scheduler;
+	}
 	public int getPanelCount()
 	{
-		return size * size;
+		return size * rows;
+	}
+	/**
+	 * Gets the problem panel showing a tile of the current game.
+	 * @param index The tile, numbered left to right then top to bottom.
+	 * @return The problem panel, or null if the board is virtualized.
+	 */
+	public MathProblemPanel getProblemPanel(int index)
+	{
+		return gridView != null ? null : problemPanels.get(index);
 	}
 	
 	/**
-	 * Starts a new game using all previous parameters.
+	 * Throws the game away: stops its timers and animations, shuts down its
+	 * scheduler thread, and stops delivering events to asynchronous listeners.
+	 * The panel can't start another game afterwards.
 	 */
-	public void startNewGame()
+	public void dispose()
+	{
+		removeBoard();
+		animationClock.stopAll();
+		scheduler.shutdown();
+		gameCompleteListeners.close();
+		problemPanelListeners.close();
+	}
+	
+	private void removeBoard()
 	{
 		for (MathProblemPanel panel : problemPanels)
 		{
+			panel.dispose();
 			remove(panel);
 		}
-		
 		problemPanels = new ArrayList<MathProblemPanel>();
+		if (gridView != null)
+		{
+			gridView.dispose();
+			remove(gridView);
+			gridView = null;
+		}
+	}
+	
+	/**
+	 * Starts a new game using all previous parameters.
+	 */
+	public void startNewGame()
+	{
+		removeBoard();
 		
-		setLayout(new GridLayout(size, size, 0, 0));
+		// a result shown or the time running out in the old game no longer holds back input
+		inputGate.reset();
+		animationClock.stopAll();
+		
+		int tileCount = size * rows;
+		gameSeed = seeds.nextLong();
+		ProblemGenerator generator = problemGenerator;
+		if (generator == null)
+			generator = adaptive ? new AdaptiveProblemGenerator(types, factIndex)
+					: new TableProblemGenerator(types);
+		Problem[] board = generator.generate(numFamily, tileCount, gameSeed);
+		model = new GameModel(types, numFamily, board);
+		results = new GameResults(tileCount);
+		startCountdown();
+		
+		if (virtualized || tileCount > MAX_PANEL_TILES)
+		{
+			startVirtualGame();
+			return;
+		}
+		
+		setLayout(new GridLayout(rows, size, 0, 0));
 		
 		BufferedImage[] subImages = splitImage();
-		for (int i = 0; i < size * size; ++i)
+		ArrayList<MathProblemPanel> panels = problemPanels;
+		grid = new GridIndex(model, tile -> commands.repaint(panels.get(tile)));
+		for (int i = 0; i < tileCount; ++i)
 		{
-			MathProblemPanel problemPanel = new MathProblemPanel(
-					types, numFamily, subImages[i], problemPanels);
+			MathProblemPanel problemPanel = new MathProblemPanel(model, i, subImages[i],
+					grid, scheduler, caretClock, animationClock, commands, inputGate);
 			problemPanel.addProblemPanelListener(this);
+			problemPanel.setProblemGenerator(generator);
 			
 			problemPanels.add(problemPanel);
 			this.add(problemPanel);
 		}
 		
-		completeCount = 0;
-		problems = new ArrayList<String>();
-		results = new ArrayList<Boolean>();
-		nanoTimes = new ArrayList<Long>();
-		tryCounts = new ArrayList<Integer>();
+		revalidate();
+	}
+	/**
+	 * Starts a new game with the given number of columns and rows, which
+	 * needn't be the same, using all previous parameters otherwise.
+	 * @param baseNum The number to use in all the calculations.
+	 * @param columns The number of columns.
+	 * @param rows The number of rows.
+	 * @param image The image to use once it has loaded.
+	 */
+	public void startNewBoard(int baseNum, int columns, int rows,
+			CompletableFuture<BufferedImage> image)
+	{
+		this.pendingImage = image;
+		this.imagePack = null;
+		this.numFamily = baseNum;
+		this.size = columns;
+		this.rows = rows;
+		this.image = image.getNow(null);
 		
+		startNewGame();
+		loadImageLater(image);
+	}
+	
+	private void startVirtualGame()
+	{
+		gridView = new TileGridView(model, size, rows, scheduler, caretClock, animationClock,
+				commands, inputGate);
+		gridView.addProblemPanelListener(this);
+		grid = gridView.getGridIndex();
+		
+		if (imagePack != null && size == rows && imagePack.hasGrid(size))
+			gridView.setTileImages(imagePack.getTiles(size));
+		else
+			gridView.setImage(image);
+		
+		setLayout(new GridLayout(1, 1, 0, 0));
+		add(gridView);
 		revalidate();
 	}
+	private void startCountdown()
+	{
+		timeUp = false;
+		if (timeLimit == 0)
+		{
+			deadlineNanos = 0;
+			showTimeLeft(-1);
+			return;
+		}
+		
+		deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeLimit);
+		showTimeLeft(timeLimit);
+		animationClock.start(countdown);
+	}
+	
+	/**
+	 * Counts the time-attack clock down. Called by the animation clock.
+	 * @param nowNanos The time of the frame.
+	 * @return Whether there is time left.
+	 */
+	private boolean countDown(long nowNanos)
+	{
+		long timeLeft = Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - nowNanos));
+		showTimeLeft(timeLeft);
+		if (timeLeft > 0)
+			return true;
+		
+		timeUp = true;
+		inputGate.close();
+		caretClock.stop(caretClock.getActivePanel());
+		gameCompleted();
+		return false;
+	}
+	
+	private void showTimeLeft(long timeLeft)
+	{
+		// listeners only hear about each tenth of a second, not each frame
+		long shown = timeLeft < 0 ? -1 : (timeLeft + 99) / 100 * 100;
+		if (shown != timeLeftShown)
+		{
+			long old = timeLeftShown;
+			timeLeftShown = shown;
+			firePropertyChange(TIME_LEFT_PROPERTY, old, shown);
+		}
+	}
+	
 	/**
 	 * Starts a new game using the new base number.
 	 * @param baseNum The number to use in all the calculations.
@@ -162,6 +561,7 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	{
 		this.numFamily = baseNum;
 		this.size = size;
+		this.rows = size;
 		
 		startNewGame();
 	}
@@ -173,8 +573,11 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	 */
 	public void startNewGame(int baseNum, int size, BufferedImage image)
 	{
+		this.pendingImage = null;
+		this.imagePack = null;
 		this.numFamily = baseNum;
 		this.size = size;
+		this.rows = size;
 		this.image = image;
 		
 		startNewGame();
@@ -188,8 +591,11 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	 */
 	public void startNewGame(int baseNum, int size, BufferedImage image, ArrayList<ProblemType> types)
 	{
+		this.pendingImage = null;
+		this.imagePack = null;
 		this.numFamily = baseNum;
 		this.size = size;
+		this.rows = size;
 		this.image = image;
 		this.types = types;
 		
@@ -204,8 +610,11 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	 */
 	public void startNewGame(int baseNum, int size, BufferedImage image, ProblemType type)
 	{
+		this.pendingImage = null;
+		this.imagePack = null;
 		this.numFamily = baseNum;
 		this.size = size;
+		this.rows = size;
 		this.image = image;
 		
 		this.types = new ArrayList<ProblemType>();
@@ -214,54 +623,102 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 		startNewGame();
 	}
 	
-	private BufferedImage[] splitImage()
+	/**
+	 * Starts a new game with an image that may still be loading. The tiles are
+	 * left blank until the image is ready, so the game can be played right away.
+	 * @param baseNum The number to use in all the calculations.
+	 * @param size The number of rows and columns to have (always the same).
+	 * @param image The image to use once it has loaded.
+	 * @param types The type(s) of problems to use.
+	 */
+	public void startNewGame(int baseNum, int size, CompletableFuture<BufferedImage> image,
+			ArrayList<ProblemType> types)
 	{
-		int width = image.getWidth();
-		int height = image.getHeight();
-		int startX = 0;
-		int startY = 0;
-//		if (image.getWidth() < image.getHeight())
-//		{
-//			width = image.getWidth();
-//			height = image.getWidth();
-//			startX = 0;
-//			startY = (image.getHeight() - image.getWidth()) / 2;
-//		}
-//		else
-//		{
-//			width = image.getHeight();
-//			height = image.getHeight();
-//			startX = (image.getWidth() - image.getHeight()) / 2;
-//			startY = 0;
-//		}
-		int subImageWidth = width / size;
-		int subImageHeight = height / size;
-		
-		BufferedImage[] subImages = new BufferedImage[size * size];
+		this.pendingImage = image;
+		this.imagePack = null;
+		this.numFamily = baseNum;
+		this.size = size;
+		this.rows = size;
+		this.image = image.getNow(null);
+		this.types = types;
 		
-		for (int i = 0; i < subImages.length; ++i)
-			subImages[i] = new BufferedImage(subImageWidth, subImageHeight, BufferedImage.TYPE_3BYTE_BGR);
+		startNewGame();
+		loadImageLater(image);
+	}
+	
+	private void loadImageLater(CompletableFuture<BufferedImage> image)
+	{
+		if (this.image == null)
+		{
+			image.thenAccept(loaded -> commands.post(() ->
+			{
+				// ignore images for games that have since been replaced
+				if (pendingImage == image)
+					setimage(loaded);
+			}));
+		}
+	}
+	
+	/**
+	 * Starts a new game with tiles from an image pack. If the pack doesn't have
+	 * the grid size, the tiles are left blank.
+	 * @param baseNum The number to use in all the calculations.
+	 * @param size The number of rows and columns to have (always the same).
+	 * @param pack The image pack to take tiles from.
+	 * @param types The type(s) of problems to use.
+	 */
+	public void startNewGame(int baseNum, int size, ImagePack pack, ArrayList<ProblemType> types)
+	{
+		this.pendingImage = null;
+		this.imagePack = pack;
+		this.numFamily = baseNum;
+		this.size = size;
+		this.rows = size;
+		this.image = null;
+		this.types = types;
 		
-		for (int x = 0; x < width / size; ++x)
-			for (int y = 0; y < height / size; ++y)
-				for (int i = 0; i < subImages.length; ++i)
-				{
-					subImages[i].setRGB(x, y, image.getRGB(
-							startX + (subImageWidth * (i % size)) + x,
-							startY + (subImageHeight * (i / size)) + y));
-				}
+		startNewGame();
+	}
+	
+	private BufferedImage[] splitImage()
+	{
+		if (imagePack != null && size == rows && imagePack.hasGrid(size))
+			return imagePack.getTiles(size);
+		if (image == null)
+			return new BufferedImage[size * rows];
 		
-		return subImages;
+		return TileSlicer.split(image, size, rows, getGraphicsConfiguration());
 	}
 	
 	/**
-	 * Adds a GameCompleteListener.
+	 * Lays out the problem panels, recording how long it takes.
+	 */
+	@Override
+	public void doLayout()
+	{
+		long startNanos = System.nanoTime();
+		super.doLayout();
+		RenderMetrics.get().recordLayout(System.nanoTime() - startNanos);
+	}
+	
+	/**
+	 * Adds a GameCompleteListener that is told synchronously on the event
+	 * dispatch thread.
 	 * @param listener The listener to add.
 	 */
 	public void addGameCompleteListener(GameCompleteListener listener)
 	{
 		gameCompleteListeners.add(listener);
 	}
+	/**
+	 * Adds a GameCompleteListener.
+	 * @param listener The listener to add.
+	 * @param delivery How the listener is told.
+	 */
+	public void addGameCompleteListener(GameCompleteListener listener, Delivery delivery)
+	{
+		gameCompleteListeners.add(listener, delivery);
+	}
 	/**
 	 * Removes a GameCompleteListener.
 	 * @param listener to remove.
@@ -272,9 +729,37 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	}
 	private void gameCompleted()
 	{
-		for (GameCompleteListener listener : gameCompleteListeners)
-			listener.gameCompleted(new GameCompleteEvent(this,
-					problems, results, nanoTimes, tryCounts));
+		gameCompleteListeners.fire(new GameCompleteEvent(this, results));
+	}
+	/**
+	 * Adds a ProblemPanelListener that hears about every problem completed in
+	 * every game, after the results are updated. It is told synchronously on
+	 * the event dispatch thread.
+	 * @param listener The listener to add.
+	 */
+	public void addProblemPanelListener(ProblemPanelListener listener)
+	{
+		problemPanelListeners.add(listener);
+	}
+	/**
+	 * Adds a ProblemPanelListener that hears about every problem completed in
+	 * every game, after the results are updated. Listeners that aren't
+	 * synchronous must not touch Swing, and see the results as they are when
+	 * the event is delivered.
+	 * @param listener The listener to add.
+	 * @param delivery How the listener is told.
+	 */
+	public void addProblemPanelListener(ProblemPanelListener listener, Delivery delivery)
+	{
+		problemPanelListeners.add(listener, delivery);
+	}
+	/**
+	 * Removes a ProblemPanelListener.
+	 * @param listener The listener to remove.
+	 */
+	public void removeProblemPanelListener(ProblemPanelListener listener)
+	{
+		problemPanelListeners.remove(listener);
 	}
 	
 	/**
@@ -283,14 +768,19 @@ public class MathGamePanel extends JPanel implements ProblemPanelListener
 	@Override
 	public void problemCompleted(ProblemPanelEvent e)
 	{
-		++completeCount;
-		problems.add(e.getSender().getProblem());
-		results.add(e.isCorrect());
-		nanoTimes.add(e.getNanosTaken());
-		tryCounts.add(e.getTriesTaken());
+		results.add(e.getProblem(), e.getAnswerGiven(), e.isCorrect(),
+				e.getTriesTaken(), e.getNanosTaken());
+		factIndex.record(e.getProblem(), e.isCorrect(), e.getNanosTaken());
+		
+		if (sessionLog != null)
+			sessionLog.append(System.currentTimeMillis(), e.getProblem(), e.getAnswerGiven(),
+					e.isCorrect(), e.getTriesTaken(), e.getNanosTaken());
+		
+		problemPanelListeners.fire(e);
 		
-		if (completeCount == getPanelCount())
+		if (model.isComplete() && !timeUp)
 		{
+			animationClock.stop(countdown);
 			gameCompleted();
 		}
 	}
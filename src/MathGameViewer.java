@@ -1,14 +1,18 @@
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.GridLayout;
+import java.awt.GraphicsConfiguration;
 import java.awt.TextField;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.awt.image.BufferedImage;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
 import java.io.File;
 import java.io.IOException;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
-import javax.imageio.ImageIO;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.JCheckBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JMenu;
@@ -19,6 +23,8 @@ import javax.swing.JRadioButton;
 import javax.swing.JSpinner;
 import javax.swing.KeyStroke;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 import javax.swing.JOptionPane;
 import java.util.Enumeration;
 import javax.swing.AbstractButton;
@@ -30,13 +36,33 @@ import javax.swing.ButtonGroup;
  * 
  * @author Bobby
  */
-public class MathGameViewer extends JFrame implements GameCompleteListener {
+public class MathGameViewer extends JFrame implements GameCompleteListener,
+		ProblemPanelListener {
 
 	private static final long serialVersionUID = 1L;
 
+	/**
+	 * The size of the window when it opens.
+	 */
+	public static final int DEFAULT_WIDTH = 800, DEFAULT_HEIGHT = 550;
+	private static final int STATUS_HEIGHT = 30, STATUS_BORDER = 5;
+	/**
+	 * The largest the game board can be when the window opens: the window less
+	 * the status bar.
+	 */
+	public static final int DEFAULT_BOARD_WIDTH = DEFAULT_WIDTH,
+			DEFAULT_BOARD_HEIGHT = DEFAULT_HEIGHT - STATUS_HEIGHT - 2 * STATUS_BORDER;
+	/**
+	 * The grid size the New Game dialog starts on.
+	 */
+	public static final int DEFAULT_GRID_SIZE = 2;
+
 	MathGamePanel gamePanel;
+	ImageAssetCache imageAssets;
+	CompletableFuture<BufferedImage> currentImage;
 	JLabel numberCorrectLabel;
 	JLabel averageTimeLabel;
+	JLabel timeLeftLabel;
 	
 	JMenuBar menuBar;
 	TextField mathText1, mathText2, mathText3, mathText4;
@@ -50,28 +76,53 @@ public class MathGameViewer extends JFrame implements GameCompleteListener {
 	 * Creates a MathGameViewer window
 	 */
 	public MathGameViewer() {
+		this(new ImageAssetCache());
+	}
+
+	/**
+	 * Creates a MathGameViewer window that loads game images from a cache,
+	 * which may already have them preloaded. The window isn't shown until
+	 * setVisible is called.
+	 * @param imageAssets The image cache.
+	 */
+	public MathGameViewer(ImageAssetCache imageAssets) {
+		this.imageAssets = imageAssets;
 
 		setTitle("Math Game");
-		setSize(800, 550);
+		setSize(DEFAULT_WIDTH, DEFAULT_HEIGHT);
 		setDefaultCloseOperation(EXIT_ON_CLOSE);
 		
 		setLayout(new BorderLayout());
 		
 		JPanel statusPanel = new JPanel();
-		statusPanel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+		statusPanel.setBorder(BorderFactory.createEmptyBorder(STATUS_BORDER, 10, STATUS_BORDER, 10));
 		statusPanel.setLayout(new GridLayout(1, 2));
 		numberCorrectLabel = new JLabel();
-		numberCorrectLabel.setPreferredSize(new Dimension(Integer.MAX_VALUE, 30));
+		numberCorrectLabel.setPreferredSize(new Dimension(Integer.MAX_VALUE, STATUS_HEIGHT));
 		statusPanel.add(numberCorrectLabel);
 		averageTimeLabel = new JLabel();
-		averageTimeLabel.setPreferredSize(new Dimension(Integer.MAX_VALUE, 30));
+		averageTimeLabel.setPreferredSize(new Dimension(Integer.MAX_VALUE, STATUS_HEIGHT));
 		statusPanel.add(averageTimeLabel);
 		add(statusPanel, BorderLayout.SOUTH);
 
+		timeLeftLabel = new JLabel("", SwingConstants.CENTER);
+		timeLeftLabel.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
+		timeLeftLabel.setVisible(false);
+		add(timeLeftLabel, BorderLayout.NORTH);
+
 		gamePanel = new MathGamePanel();
 		add(gamePanel);
+		gamePanel.addPropertyChangeListener(MathGamePanel.TIME_LEFT_PROPERTY,
+				e -> showTimeLeft((Long) e.getNewValue()));
 
 		gamePanel.addGameCompleteListener(this);
+		gamePanel.addProblemPanelListener(this);
+		openSessionLog();
+		gamePanel.addComponentListener(new ComponentAdapter() {
+			public void componentResized(ComponentEvent e) {
+				reloadImageIfLarger();
+			}
+		});
 
 		// Creates a menu
 
@@ -123,8 +174,6 @@ public class MathGameViewer extends JFrame implements GameCompleteListener {
 			}
 		});
 		setJMenuBar(menuBar);
-
-		setVisible(true);
 	}
 
 	/**
@@ -147,7 +196,7 @@ public class MathGameViewer extends JFrame implements GameCompleteListener {
 		ButtonGroup imageButton = new ButtonGroup();
 		ButtonGroup typeButton = new ButtonGroup();
 		
-		String[] objectGridSizes = { "2", "3", "4" };
+		String[] objectGridSizes = { String.valueOf(DEFAULT_GRID_SIZE), "3", "4" };
 		String[] objectImages = { "1", "2", "3" };
 		String[] objectMathType = { "ADDITION and SUBTRACTION", "MULTIPLICATION AND DIVISION" };
 
@@ -155,7 +204,7 @@ public class MathGameViewer extends JFrame implements GameCompleteListener {
 		JRadioButton[] imageOption = new JRadioButton[numButtons];
 		JRadioButton[] typeOption = new JRadioButton[2];
 
-		Object[] optionObjects = new Object[8];
+		Object[] optionObjects = new Object[11];
 
 		// Radio buttons for Grid Option / button group
 		for (int i = 0; i < numButtons; i++) {
@@ -178,12 +227,19 @@ public class MathGameViewer extends JFrame implements GameCompleteListener {
 		// JSpinner for number family
 		JSpinner numFamilySpinner = new JSpinner(
 				new SpinnerNumberModel(0, 0, 12, 1));
+		// JSpinner for the time attack limit, in seconds
+		JSpinner timeLimitSpinner = new JSpinner(
+				new SpinnerNumberModel((int) (gamePanel.getTimeLimit() / 1000), 0, 600, 15));
+		// boards focused on slow or missed facts can't be repeated from a seed
+		JCheckBox adaptiveOption = new JCheckBox("Practice the facts I'm slow on",
+				gamePanel.isAdaptive());
 
 		// List of option objects to make a vertical option pane
 		JLabel gridMessage = new JLabel("Grid Size: ");
 		JLabel imageMessage = new JLabel("Image Selection: ");
 		JLabel typeMessage = new JLabel("Math Type: ");
 		JLabel familyMessage = new JLabel("Number family: ");
+		JLabel timeLimitMessage = new JLabel("Time attack (seconds, 0 for none): ");
 
 		optionObjects[0] = gridMessage;
 		optionObjects[1] = gridSizeOption;
@@ -193,6 +249,9 @@ public class MathGameViewer extends JFrame implements GameCompleteListener {
 		optionObjects[5] = typeOption;
 		optionObjects[6] = familyMessage;
 		optionObjects[7] = numFamilySpinner;
+		optionObjects[8] = timeLimitMessage;
+		optionObjects[9] = timeLimitSpinner;
+		optionObjects[10] = adaptiveOption;
 
 		int choice = JOptionPane.showConfirmDialog(
 				panel, optionObjects, "New Game", JOptionPane.OK_CANCEL_OPTION);
@@ -220,26 +279,72 @@ public class MathGameViewer extends JFrame implements GameCompleteListener {
 		int gridSelect = Integer.parseInt(gridChoice);
 		imageChoice = "image"+imageChoice+".jpg";
 		int familySelect = (int)numFamilySpinner.getValue();
+		gamePanel.setTimeLimit((int) timeLimitSpinner.getValue() * 1000L);
+		gamePanel.setAdaptive(adaptiveOption.isSelected());
 		
 
-		BufferedImage imageSelect = null;
-		try {
-			imageSelect = ImageIO.read(new File(imageChoice));
-		} catch (IOException e) {
-			System.out.print("File not found");
-		}
-		
-		if(typeChoice.equals(objectMathType[0])){
-			gamePanel.startNewGame(familySelect, gridSelect, imageSelect, newTypeAdd);
-		}
+		ArrayList<ProblemType> typeSelect = newTypeAdd;
 		if(typeChoice.equals(objectMathType[1])){
-			gamePanel.startNewGame(familySelect, gridSelect, imageSelect, newTypeMult);
+			typeSelect = newTypeMult;
+		}
+
+		// prefer a pre-tiled image pack, falling back to decoding the JPEG
+		ImagePack packSelect = imageAssets.findPack(imageChoice);
+		if (packSelect != null && packSelect.hasGrid(gridSelect)) {
+			currentImage = null;
+			gamePanel.startNewGame(familySelect, gridSelect, packSelect, typeSelect);
+		} else {
+			CompletableFuture<BufferedImage> imageSelect = loadGameImage(gridSelect);
+			imageSelect.exceptionally(e -> {
+				System.out.print("File not found");
+				return null;
+			});
+			gamePanel.startNewGame(familySelect, gridSelect, imageSelect, typeSelect);
 		}
 		
 		numberCorrectLabel.setText("");
 		averageTimeLabel.setText("");
 	}
 
+	/**
+	 * Loads the chosen image, decoded only as large as the game panel needs.
+	 * @param gridSize The number of rows and columns the image will be split into.
+	 * @return A future that completes with the image.
+	 */
+	private CompletableFuture<BufferedImage> loadGameImage(int gridSize) {
+		double scaleX = 1;
+		double scaleY = 1;
+		GraphicsConfiguration config = gamePanel.getGraphicsConfiguration();
+		if (config != null) {
+			scaleX = config.getDefaultTransform().getScaleX();
+			scaleY = config.getDefaultTransform().getScaleY();
+		}
+		int width = (int) Math.ceil(gamePanel.getWidth() * scaleX);
+		int height = (int) Math.ceil(gamePanel.getHeight() * scaleY);
+
+		currentImage = imageAssets.loadForDisplay(imageChoice, width, height, gridSize);
+		return currentImage;
+	}
+
+	/**
+	 * Decodes the current image again if the game panel has grown past the
+	 * resolution it was decoded at.
+	 */
+	private void reloadImageIfLarger() {
+		if (currentImage == null)
+			return;
+
+		CompletableFuture<BufferedImage> previous = currentImage;
+		CompletableFuture<BufferedImage> image = loadGameImage(gamePanel.getGridSize());
+		if (image == previous)
+			return;
+
+		image.thenAccept(loaded -> SwingUtilities.invokeLater(() -> {
+			if (currentImage == image)
+				gamePanel.setimage(loaded);
+		}));
+	}
+
 	public class GroupButtonUtils {
 
 		public String getSelectedButtonText(ButtonGroup buttonGroup) {
@@ -260,18 +365,61 @@ public class MathGameViewer extends JFrame implements GameCompleteListener {
 	 */
 	@Override
 	public void gameCompleted(GameCompleteEvent e) {
-		int numCorrect = 0;
-		for (boolean result : e.getResults())
-			if (result)
-				++numCorrect;
-		numberCorrectLabel.setText("Number correct: " + numCorrect
-				+ " out of " + e.getResults().size());
-		
-		long totalTime = 0;
-		for (long time : e.getNanoTimes())
-			totalTime += time;
-		long averageTime = totalTime / e.getNanoTimes().size();
-		averageTimeLabel.setText("Average time: " + getTimeString(averageTime));
+		showStats(e.getResults());
+	}
+	
+	/**
+	 * Shows the stats so far each time a problem is completed.
+	 */
+	@Override
+	public void problemCompleted(ProblemPanelEvent e) {
+		showStats(gamePanel.getResults());
+	}
+	
+	/**
+	 * Shows the time left in a time attack game above the board, or hides it
+	 * if the game isn't timed.
+	 * @param timeLeft The time left in milliseconds, or -1 if the game isn't timed.
+	 */
+	private void showTimeLeft(long timeLeft) {
+		if (timeLeft < 0) {
+			timeLeftLabel.setVisible(false);
+			return;
+		}
+
+		timeLeftLabel.setText(timeLeft == 0 ? "Time's up!"
+				: String.format("Time left: %d.%d s", timeLeft / 1000, timeLeft % 1000 / 100));
+		timeLeftLabel.setVisible(true);
+	}
+
+	/**
+	 * Shows game stats in the status bar. The stats are kept up to date by the
+	 * results, so this does no work per problem.
+	 * @param results The results so far.
+	 */
+	private void showStats(GameResults results) {
+		numberCorrectLabel.setText(String.format("Number correct: %d out of %d (%.0f%%, %d on a second try)",
+				results.getCorrectCount(), results.getCount(), results.getAccuracy() * 100,
+				results.getTriesCount(2)));
+		averageTimeLabel.setText("Average time: " + getTimeString(results.getAverageNanos())
+				+ " (median " + getTimeString(results.getMedianNanos())
+				+ ", 90th percentile " + getTimeString(results.getPercentileNanos(0.9)) + ")");
+	}
+	
+	/**
+	 * Logs every answered problem to the user's session log, and closes the log
+	 * when the program exits, whether from Quit or the window closing.
+	 */
+	private void openSessionLog() {
+		File directory = new File(System.getProperty("user.home"),
+				".mathgame" + File.separator + "sessions");
+		try {
+			SessionLog sessionLog = new SessionLog(directory);
+			gamePanel.setSessionLog(sessionLog);
+			Runtime.getRuntime().addShutdownHook(new Thread(sessionLog::close, "session-log-close"));
+		} catch (IOException e) {
+			System.err.println("Couldn't open session log: " + e.getMessage());
+		}
 	}
 	
 	/**
@@ -1,15 +1,13 @@
+import java.awt.AlphaComposite;
+import java.awt.Composite;
 import java.awt.Image;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
-import java.awt.image.ImageObserver;
-import java.util.ArrayList;
-import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
 import java.awt.Color;
-import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 
@@ -19,81 +17,79 @@ import javax.swing.JPanel;
  * Displays a cover, problem, or image, and allows the user to answer a problem
  * @author Ben
  */
-public class MathProblemPanel extends JPanel implements MouseListener, KeyListener
+public class MathProblemPanel extends JPanel implements MouseListener, KeyListener,
+		CaretClock.Caret, AnimationClock.Animation
 {
 
-	private enum PanelState
-	{
-		COVER,
-		PROBLEM,
-		IMAGE
-	}
-	private enum ProblemState
-	{
-		NORMAL,
-		CORRECT,
-		INCORRECT,
-		INCORRECT_FINAL
-	}
-	
 	private static final long serialVersionUID = 1L;
 	
-	private static final int NUMBER_MAX = 12;
-	private static final Color CORRECT_COLOR = new Color(32, 176, 32);
-	private static final Color INCORRECT_COLOR = Color.RED;
+	private static final Color COVER_COLOR = Color.GRAY;
+	private static final Color HOVER_COLOR = Color.DARK_GRAY;
+	private static final long REVEAL_NANOS = TimeUnit.MILLISECONDS.toNanos(GameModel.REVEAL_FADE);
 	
-	private static Random rng = new Random();
-	private Timer resultTimer = new Timer();
-	private int caretIndex;
+	private SplittableRandom rng = new SplittableRandom();
+	private GameScheduler scheduler;
+	private GameScheduler.Handle resultTask;
 	private char currentCaret;
-	private Timer caretTimer = new Timer();
-	private final long caretTimerInterval = 500;
+	private CaretClock caretClock;
+	private AnimationClock animationClock;
+	private GameCommandQueue commands;
+	private InputGate inputGate;
+	private ProblemGenerator problemGenerator;
 	
-	private ArrayList<ProblemType> types;
-	private int numFamily;
-	private Image image;
+	private GameModel model;
+	private int index;
+	private ScaledImageCache scaledImage = new ScaledImageCache();
 	
-	private ArrayList<MathProblemPanel> allPanels;
+	private GridIndex grid;
 	
-	private ArrayList<ProblemPanelListener> problemPanelListeners
-			= new ArrayList<ProblemPanelListener>();
+	private EventPipeline<ProblemPanelListener, ProblemPanelEvent> problemPanelListeners
+			= new EventPipeline<ProblemPanelListener, ProblemPanelEvent>(
+					"problem-events", ProblemPanelListener::problemCompleted);
 	
-	private Color coverColor;
+	// views of the model's state for this tile
+	private AnswerBuffer answer;
 	
-	private PanelState panelState;
-	private ProblemState problemState;
-	private String problem;
-	private String answer;
-	private final String defaultAnswer = "___"; // 3 underscores
-	private int correctAnswer;
-	private int tries;
+	// the text layout last painted, which also says where the answer is
+	private ProblemLayout layout;
 	
-	private long totalNanos;
-	private long startNanos;
+	// when the image started fading in, while it is
+	private boolean revealing;
+	private long revealStartNanos;
 	
 	/**
-	 * Creates a MathProblemPanel with the given parameters.
-	 * @param types The possible types of problems.
-	 * @param numFamily The number family.
+	 * Creates a MathProblemPanel that shows one tile of a game.
+	 * @param model The game.
+	 * @param index The tile of the game this panel shows.
 	 * @param image The image.
-	 * @param allPanels A list of all problem panels being used.
+	 * @param grid The hovered and active tiles of the game.
+	 * @param scheduler The scheduler shared by all problem panels in the game.
+	 * @param caretClock The caret blink clock shared by all problem panels in the game.
+	 * @param animationClock The render loop shared by all problem panels in the game.
+	 * @param commands The game's command queue, which merges the panels' repaints.
+	 * @param inputGate The gate that holds back input to all problem panels in the game.
 	 */
-	public MathProblemPanel(ArrayList<ProblemType> types, int numFamily, Image image,
-			ArrayList<MathProblemPanel> allPanels)
+	public MathProblemPanel(GameModel model, int index, Image image,
+			GridIndex grid, GameScheduler scheduler,
+			CaretClock caretClock, AnimationClock animationClock,
+			GameCommandQueue commands, InputGate inputGate)
 	{
-		this.types = types;
-		this.numFamily = numFamily;
-		this.image = image;
+		this.model = model;
+		this.index = index;
+		scaledImage.setSource(image);
 		
-		this.allPanels = allPanels;
+		this.grid = grid;
+		this.scheduler = scheduler;
+		this.caretClock = caretClock;
+		this.animationClock = animationClock;
+		this.commands = commands;
+		this.inputGate = inputGate;
 		
-		coverColor = Color.GRAY;
+		answer = model.getAnswer(index);
+		currentCaret = '_';
 		
 		addMouseListener(this);
 		addKeyListener(this);
-		
-		panelState = PanelState.COVER;
-		resetProblem();
 	}
 	
 	/**
@@ -102,7 +98,35 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 	 */
 	public String getProblem()
 	{
-		return problem;
+		return model.getProblem(index).getText();
+	}
+	
+	/**
+	 * Gets the problem being shown.
+	 * @return The problem.
+	 */
+	public Problem getMathProblem()
+	{
+		return model.getProblem(index);
+	}
+	
+	/**
+	 * Gets the tile of the game this panel shows.
+	 * @return The tile index.
+	 */
+	public int getIndex()
+	{
+		return index;
+	}
+	
+	/**
+	 * Sets the generator that {@link #resetProblem()} picks from.
+	 * @param problemGenerator The generator, or null to pick evenly from the
+	 * problem type(s).
+	 */
+	public void setProblemGenerator(ProblemGenerator problemGenerator)
+	{
+		this.problemGenerator = problemGenerator;
 	}
 	
 	/**
@@ -110,81 +134,32 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 	 */
 	public void resetProblem()
 	{
-		ProblemType type = types.get(rng.nextInt(types.size()));
-		
-		int firstNum = -1;
-		int secondNum = -1;
-		String sign = null;
-		
-		int rngNum;
-		
-		switch (type)
-		{
-			case ADDITION:
-				rngNum = rng.nextInt(NUMBER_MAX + 1);
-				
-				sign = "+";
-				firstNum = rngNum;
-				secondNum = numFamily;
-				
-				correctAnswer = firstNum + secondNum;
-				break;
-			case SUBTRACTION:
-				rngNum = rng.nextInt(NUMBER_MAX + 1);
-				
-				sign = "-";
-				if (rngNum > numFamily)
-				{
-					firstNum = rngNum;
-					secondNum = numFamily;
-				}
-				else
-				{
-					firstNum = numFamily;
-					secondNum = rngNum;
-				}
-				
-				correctAnswer = firstNum - secondNum;
-				break;
-			case MULTIPLICATION:
-				rngNum = rng.nextInt(NUMBER_MAX + 1);
-				
-				sign = "";
-				firstNum = rngNum;
-				secondNum = numFamily;
-				
-				correctAnswer = firstNum * secondNum;
-				break;
-			case DIVISION:
-				rngNum = rng.nextInt(NUMBER_MAX) + 1; // can't be 0
-				
-				sign = "";
-				if (numFamily == 0)
-				{
-					firstNum = 0;
-					secondNum = rngNum;
-				}
-				else
-				{
-					firstNum = numFamily * rngNum;
-					secondNum = numFamily;
-				}
-				
-				correctAnswer = firstNum / secondNum;
-				break;
-		}
-		
-		problem = String.format("%d %s %d =", firstNum, sign, secondNum);
-		answer = defaultAnswer;
-		tries = 0;
-		problemState = ProblemState.NORMAL;
-
-		caretIndex = 2;
-		
-		totalNanos = 0;
-		startNanos = System.nanoTime();
-		
-		repaint();
+		if (problemGenerator != null)
+			setProblem(problemGenerator.pick(model.getNumFamily(), rng));
+		else
+			setProblem(ProblemTable.pick(model.getTypes(), model.getNumFamily(), rng));
+	}
+	/**
+	 * Sets the problem and starts it over.
+	 * @param problem The problem.
+	 */
+	public void setProblem(Problem problem)
+	{
+		model.setProblem(index, problem, System.nanoTime());
+		commands.repaint(this);
+	}
+	
+	/**
+	 * Cancels the panel's pending timers and stops delivering events to
+	 * asynchronous listeners. Call this when the panel is thrown away.
+	 */
+	public void dispose()
+	{
+		if (resultTask != null)
+			resultTask.cancel();
+		caretClock.stop(this);
+		animationClock.stop(this);
+		problemPanelListeners.close();
 	}
 	
 	/**
@@ -193,7 +168,10 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 	 */
 	public void setImage(Image image)
 	{
-		this.image = image;
+		scaledImage.setSource(image);
+		
+		if (model.getPanelState(index) == PanelState.IMAGE)
+			commands.repaint(this);
 	}
 	
 	/**
@@ -202,97 +180,82 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 	@Override
 	public void paintComponent(Graphics g)
 	{
+		long startNanos = System.nanoTime();
 		super.paintComponent(g);
 		
 		Graphics2D g2 = (Graphics2D) g;
+		Problem problem = model.getProblem(index);
+		PanelState panelState = model.getPanelState(index);
+		ProblemState problemState = model.getProblemState(index);
 		
 		switch (panelState)
 		{
 			case COVER:
-				g2.setColor(coverColor);
+				g2.setColor(grid.getHoveredTile() == index ? HOVER_COLOR : COVER_COLOR);
 				g2.fillRect(0, 0, getWidth() - 1, getHeight() - 1);
 				g2.setColor(Color.BLACK);
 				g2.drawRect(0, 0, getWidth() - 1, getHeight() - 1);
 				break;
 			case PROBLEM:
-				// resize the font according the dimension smaller than the ratio 16:9
-				int fontSize;
-				if (((double)getWidth() / getHeight()) < (16.0 / 9))
-					fontSize = getWidth() / 8;
-				else
-					fontSize = (int)(getHeight() / 4.5);
-				
-				g2.setFont(new Font("Courier New", Font.PLAIN, fontSize));
-				
-				int problemWidth = g2.getFontMetrics().stringWidth(problem);
-				int stringHeight = g2.getFontMetrics().getHeight();
-				stringHeight = stringHeight * 6 / 5;
-				int problemX = (getWidth() - problemWidth) / 2;
-				int problemY = (getHeight() / 2) - (stringHeight * 5 / 6);
-				int answerY = problemY + stringHeight;
-				
-				g2.drawString(problem, problemX, problemY);
-				
-				if (problemState == ProblemState.INCORRECT_FINAL)
+				paintProblem(g2, problem, problemState);
+				break;
+			case IMAGE:
+				float revealed = getRevealProgress(startNanos);
+				if (revealed < 1)
 				{
-					g2.setColor(INCORRECT_COLOR);
+					// fade from the answered problem to the image
+					paintProblem(g2, problem, problemState);
+					Composite oldComposite = g2.getComposite();
+					g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, revealed));
+					scaledImage.paint(g2, getWidth(), getHeight(), this);
+					g2.setComposite(oldComposite);
 				}
 				else
-				{
-					g2.setColor(Color.BLACK);
-				}
-				
-				int answerWidth = g2.getFontMetrics().stringWidth(answer);
-				int charWidth = answerWidth / answer.length();
-				int spaceWidth = (int)(charWidth * 0.2);
-				answerWidth = charWidth * answer.length()
-						+ spaceWidth * (answer.length() - 1);
-				int answerX = (getWidth() - answerWidth) / 2;
-				
-				for (int i = 0; i < answer.length(); ++i)
-				{
-					g2.drawString(answer.charAt(i) + "", answerX, answerY);
-					answerX += charWidth + spaceWidth;
-				}
-
-				if (problemState != ProblemState.NORMAL)
-				{
-					String lastLine = null;
-					switch (problemState)
-					{
-						case CORRECT:
-							lastLine = "Correct!";
-							g2.setColor(CORRECT_COLOR);
-							break;
-						case INCORRECT:
-							lastLine = "Incorrect";
-							g2.setColor(INCORRECT_COLOR);
-							break;
-						case INCORRECT_FINAL:
-							lastLine = "(" + correctAnswer + ")";
-							g2.setColor(CORRECT_COLOR);
-							break;
-						default:
-							// do nothing
-							break;
-					}
-					
-					int lastLineWidth = g2.getFontMetrics().stringWidth(lastLine);
-					int lastLineX = (getWidth() - lastLineWidth) / 2;
-					int lastLineY = answerY + stringHeight;
-					
-					g2.drawString(lastLine, lastLineX, lastLineY);
-				}
-				
-				g2.setColor(Color.BLACK);
-				g2.drawRect(0, 0, getWidth() - 1, getHeight() - 1);
-				break;
-			case IMAGE:
-				Image img = image.getScaledInstance(getWidth(), getHeight(),
-						Image.SCALE_AREA_AVERAGING);
-				g2.drawImage(img, 0, 0, (ImageObserver) this);
+					scaledImage.paint(g2, getWidth(), getHeight(), this);
 				break;
 		}
+		
+		RenderMetrics.get().recordPaint(panelState, System.nanoTime() - startNanos);
+	}
+	
+	private void paintProblem(Graphics2D g2, Problem problem, ProblemState problemState)
+	{
+		if (layout == null || !layout.matches(g2, getWidth(), getHeight(),
+				problem.getText(), problem.getAnswer(), answer.getWidth()))
+		{
+			layout = new ProblemLayout(g2, getWidth(), getHeight(),
+					problem.getText(), problem.getAnswer(), answer.getWidth());
+		}
+		
+		layout.drawPanel(g2, answer, problemState, currentCaret);
+	}
+	
+	/**
+	 * Gets how far the image has faded in.
+	 * @param nowNanos The current time.
+	 * @return From 0 for just revealed to 1 for fully shown.
+	 */
+	private float getRevealProgress(long nowNanos)
+	{
+		if (!revealing)
+			return 1;
+		
+		return Math.max(0, Math.min(1, (float) (nowNanos - revealStartNanos) / REVEAL_NANOS));
+	}
+	
+	/**
+	 * Repaints the image fading in. Called by the animation clock.
+	 * @return Whether the image is still fading in.
+	 */
+	@Override
+	public boolean frame(long nowNanos)
+	{
+		commands.repaint(this);
+		
+		// the last frame paints the image fully shown
+		if (nowNanos - revealStartNanos >= REVEAL_NANOS)
+			revealing = false;
+		return revealing;
 	}
 	
 	@Override
@@ -306,16 +269,10 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 	@Override
 	public void mouseEntered(MouseEvent e)
 	{
-		coverColor = Color.DARK_GRAY;
-		
-		for (MathProblemPanel panel : allPanels)
-			if (panel != this && panel.panelState == PanelState.COVER)
-			{
-				panel.coverColor = Color.GRAY;
-				panel.repaint();
-			}
+		if (!inputGate.admit())
+			return;
 		
-		repaint();
+		grid.setHoveredTile(index);
 	}
 	/**
 	 * Processes a mouse leaving the panel.
@@ -323,8 +280,10 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 	@Override
 	public void mouseExited(MouseEvent e)
 	{
-		coverColor = Color.GRAY;
-		repaint();
+		if (!inputGate.admit())
+			return;
+		
+		grid.clearHoveredTile(index);
 	}
 	/**
 	 * Process the mouse being pressed in the panel.
@@ -332,30 +291,14 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 	@Override
 	public void mousePressed(MouseEvent e)
 	{
-		if (panelState == PanelState.COVER)
+		if (!inputGate.admit())
+			return;
+		
+		// opening this tile covers the one being worked on
+		if (grid.open(index, System.nanoTime()))
 		{
-			for (MathProblemPanel panel : allPanels)
-			{
-				if (panel.panelState == PanelState.PROBLEM
-						&& panel.problemState != ProblemState.INCORRECT_FINAL)
-				{
-					long currentNanos = System.nanoTime();
-					long elapsedNanos = currentNanos - panel.startNanos;
-					panel.totalNanos += elapsedNanos;
-					
-					panel.panelState = PanelState.COVER;
-					panel.repaint();
-				}
-			}
-			
-			panelState = PanelState.PROBLEM;
-
 			currentCaret = '_';
-			caretTimer.schedule(new CaretTask(), caretTimerInterval);
-			
-			repaint();
-			
-			startNanos = System.nanoTime();
+			caretClock.start(this);
 		}
 
 		grabFocus();
@@ -372,138 +315,60 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 	@Override
 	public void keyPressed(KeyEvent arg0)
 	{
-		if (panelState == PanelState.PROBLEM
-				&& problemState != ProblemState.INCORRECT_FINAL)
+		if (inputGate.admit() && model.isEditable(index))
 		{
-			// if the key was backspace and the answer is not empty
-			if (arg0.getKeyCode() == KeyEvent.VK_BACK_SPACE
-					&& caretIndex != 2)
+			int oldCaretIndex = answer.getCaretIndex();
+			boolean submitted = false;
+			
+			if (arg0.getKeyCode() == KeyEvent.VK_BACK_SPACE)
 			{
-				++caretIndex;
-				
-				// remove the first digit
-				answer = defaultAnswer.substring(0, caretIndex) 
-						+ currentCaret
-						+ answer.substring(caretIndex, answer.length() - 1);
+				// remove the last digit typed
+				model.backspace(index);
 			}
-			else if (arg0.getKeyCode() == KeyEvent.VK_ENTER
-					&& !answer.endsWith(currentCaret + ""))
+			else if (arg0.getKeyCode() == KeyEvent.VK_ENTER)
 			{
-				// make all panels unresponsive to input
-				for (MathProblemPanel panel : allPanels)
+				ProblemState result = model.submit(index, System.nanoTime());
+				submitted = result != null;
+				
+				if (result == ProblemState.CORRECT || result == ProblemState.INCORRECT)
 				{
-					panel.removeMouseListener(panel);
-					panel.removeKeyListener(panel);
+					resultTask = inputGate.showResult(model, index, result, scheduler, () ->
+					{
+						revealing = true;
+						revealStartNanos = System.nanoTime();
+						animationClock.start(this);
+						commands.repaint(this);
+					}, () ->
+					{
+						currentCaret = '_';
+						commands.repaint(this);
+					});
 				}
 				
-				// increment tries
-				++tries;
-				
-				int myAnswer = Integer.parseInt(answer.substring(caretIndex + 1));
-				if (myAnswer == correctAnswer)
+				if (result == ProblemState.CORRECT)
 				{
-					totalNanos += System.nanoTime() - startNanos;
-					
-					problemState = ProblemState.CORRECT;
-					
-					resultTimer.schedule(new TimerTask()
-					{
-						@Override
-						public void run()
-						{
-							panelState = PanelState.IMAGE;
-							repaint();
-							
-							// restore input
-							for (MathProblemPanel panel : allPanels)
-							{
-								panel.addMouseListener(panel);
-								panel.addKeyListener(panel);
-							}
-						}
-					}, 1500);
-					
-					for (ProblemPanelListener listener : problemPanelListeners)
-						listener.problemCompleted(new ProblemPanelEvent(this, true, tries, totalNanos));
+					fireProblemCompleted(true);
 				}
-				else
+				else if (result == ProblemState.INCORRECT_FINAL)
 				{
-					totalNanos += System.nanoTime() - startNanos;
-					
-					if (tries >= 2)
-					{
-						problemState = ProblemState.INCORRECT_FINAL;
-						
-						answer = answer.replace(" ", "_");
-						
-						// restore input
-						for (MathProblemPanel panel : allPanels)
-						{
-							panel.addMouseListener(panel);
-							panel.addKeyListener(panel);
-						}
-						
-						for (ProblemPanelListener listener : problemPanelListeners)
-							listener.problemCompleted(new ProblemPanelEvent(this, false, tries, totalNanos));
-					}
-					else
-					{
-						totalNanos += System.nanoTime() - startNanos;
-						
-						problemState = ProblemState.INCORRECT;
-						
-						resultTimer.schedule(new TimerTask()
-							{
-								@Override
-								public void run()
-								{
-									panelState = PanelState.PROBLEM;
-									problemState = ProblemState.NORMAL;
-									answer = defaultAnswer;
-									currentCaret = '_';
-									caretIndex = 2;
-									repaint();
-									
-									// restore input
-									for (MathProblemPanel panel : allPanels)
-									{
-										panel.addMouseListener(panel);
-										panel.addKeyListener(panel);
-									}
-									
-									// start the clock again
-									startNanos = System.nanoTime();
-								}
-							}, 1000);
-					}
+					currentCaret = '_';
+					fireProblemCompleted(false);
 				}
 			}
 			else
 			{
 				char key = arg0.getKeyChar();
 				
-				// if the key is a digit and the answer is not already 3 digits
-				if (Character.isDigit(key) && caretIndex >= 0)
-				{
-					if (answer.substring(caretIndex + 1) == "0")
-					{
-						answer = "_" + currentCaret + key;
-					}
-					else
-					{
-						if (caretIndex < 1)
-							answer = answer.substring(caretIndex + 1) + key;
-						else
-							answer = defaultAnswer.substring(0, caretIndex - 1)
-									+ currentCaret
-									+ answer.substring(caretIndex + 1) + key;
-						
-						--caretIndex;
-					}
-				}
+				// the answer ignores digits once it is full
+				if (key >= '0' && key <= '9')
+					model.typeDigit(index, key - '0');
 			}
 			
-			repaint();
+			if (submitted)
+				commands.repaint(this);
+			else
+				repaintAnswer(Math.max(0, Math.min(oldCaretIndex, answer.getCaretIndex())),
+						answer.getWidth());
 		}
 	}
 	@Override
@@ -518,13 +383,23 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 	}
 	
 	/**
-	 * Adds a ProblemPanelListener.
+	 * Adds a ProblemPanelListener that is told synchronously on the event
+	 * dispatch thread.
 	 * @param listener The listener to add.
 	 */
 	public void addProblemPanelListener(ProblemPanelListener listener)
 	{
 		problemPanelListeners.add(listener);
 	}
+	/**
+	 * Adds a ProblemPanelListener.
+	 * @param listener The listener to add.
+	 * @param delivery How the listener is told.
+	 */
+	public void addProblemPanelListener(ProblemPanelListener listener, Delivery delivery)
+	{
+		problemPanelListeners.add(listener, delivery);
+	}
 	/**
 	 * Removes a ProblemPanelListener.
 	 * @param listener The listener to remove.
@@ -534,35 +409,60 @@ public class MathProblemPanel extends JPanel implements MouseListener, KeyListen
 		problemPanelListeners.remove(listener);
 	}
 	
-	class CaretTask extends TimerTask
+	private void fireProblemCompleted(boolean isCorrect)
+	{
+		ProblemPanelEvent event = new ProblemPanelEvent(this, model.getProblem(index),
+				answer.getValue(), isCorrect, model.getTries(index), model.getTotalNanos(index));
+		problemPanelListeners.fire(event);
+	}
+	
+	/**
+	 * Blinks the caret once. Called by the caret clock.
+	 * @return Whether the caret should keep blinking.
+	 */
+	@Override
+	public boolean blinkCaret()
 	{
-		@Override
-		public void run()
+		// if the problem panel is still showing and editable
+		int caretIndex = answer.getCaretIndex();
+		if (model.getProblemState(index) == ProblemState.NORMAL
+				&& caretIndex >= 0)
 		{
-			// if the problem panel is still showing and editable
-			if (problemState == ProblemState.NORMAL
-					&& caretIndex >= 0)
+			// switch the currentCaret
+			if (currentCaret == '_')
 			{
-				// switch the currentCaret
-				if (answer.charAt(caretIndex) == '_')
-				{
-					currentCaret = ' ';
-				}
-				else
-					currentCaret = '_';
-
-				answer = answer.substring(0, caretIndex)
-						+ currentCaret
-						+ answer.substring(caretIndex + 1);
-				
-				repaint();
+				currentCaret = ' ';
 			}
+			else
+				currentCaret = '_';
+			
+			repaintAnswer(caretIndex, caretIndex + 1);
+		}
 
-			// start the timer again if the problem is still showing
-			if (panelState == PanelState.PROBLEM
-					&& problemState != ProblemState.INCORRECT_FINAL)
-				caretTimer.schedule(new CaretTask(), caretTimerInterval);
+		// keep blinking if the problem is still showing
+		return model.getPanelState(index) == PanelState.PROBLEM
+				&& model.getProblemState(index) != ProblemState.INCORRECT_FINAL;
+	}
+	
+	/**
+	 * Repaints only the given answer characters, or the whole panel if the
+	 * answer hasn't been painted yet.
+	 * @param from The index of the first character to repaint.
+	 * @param to The index after the last character to repaint.
+	 */
+	private void repaintAnswer(int from, int to)
+	{
+		if (layout == null || from >= to)
+		{
+			commands.repaint(this);
+			return;
 		}
+		
+		// pad by a pixel for antialiasing
+		commands.repaint(this, layout.getAnswerCharX(from) - 1,
+				layout.getAnswerTop() - 1,
+				(to - from - 1) * layout.getAnswerAdvance() + layout.getAnswerCharWidth() + 2,
+				layout.getAnswerHeight() + 2);
 	}
 	
 }
\ No newline at end of file
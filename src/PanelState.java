@@ -0,0 +1,9 @@
+/**
+ * What a tile of the game board is showing.
+ */
+public enum PanelState
+{
+	COVER,
+	PROBLEM,
+	IMAGE
+}
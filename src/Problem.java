@@ -0,0 +1,98 @@
+/**
+ * One math problem with its text already rendered.
+ */
+public class Problem
+{
+
+	private final ProblemType type;
+	private final int firstNum;
+	private final int secondNum;
+	private final int answer;
+	private final String text;
+
+	/**
+	 * Initializes a Problem, working out the answer from the operands.
+	 * @param type The operation.
+	 * @param firstNum The number on the left.
+	 * @param secondNum The number on the right.
+	 */
+	public Problem(ProblemType type, int firstNum, int secondNum)
+	{
+		this.type = type;
+		this.firstNum = firstNum;
+		this.secondNum = secondNum;
+
+		char sign;
+		switch (type)
+		{
+			case ADDITION:
+				sign = '+';
+				answer = firstNum + secondNum;
+				break;
+			case SUBTRACTION:
+				sign = '-';
+				answer = firstNum - secondNum;
+				break;
+			case MULTIPLICATION:
+				sign = '\u00D7'; // times sign
+				answer = firstNum * secondNum;
+				break;
+			case DIVISION:
+				sign = '\u00F7'; // division sign
+				answer = firstNum / secondNum;
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown problem type " + type);
+		}
+
+		text = firstNum + " " + sign + " " + secondNum + " =";
+	}
+
+	/**
+	 * Gets the operation.
+	 * @return The problem type.
+	 */
+	public ProblemType getType()
+	{
+		return type;
+	}
+	/**
+	 * Gets the number on the left.
+	 * @return The first number.
+	 */
+	public int getFirstNum()
+	{
+		return firstNum;
+	}
+	/**
+	 * Gets the number on the right.
+	 * @return The second number.
+	 */
+	public int getSecondNum()
+	{
+		return secondNum;
+	}
+	/**
+	 * Gets the correct answer.
+	 * @return The answer.
+	 */
+	public int getAnswer()
+	{
+		return answer;
+	}
+	/**
+	 * Gets the problem as it is shown, such as "3 + 4 =".
+	 * @return The problem text.
+	 */
+	public String getText()
+	{
+		return text;
+	}
+
+	@Override
+	public String toString()
+	{
+		return text;
+	}
+
+}
@@ -0,0 +1,68 @@
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Makes the problems for a board. Implementations must be stateless or thread
+ * safe, and must only use the random number generator they are given, so that a
+ * board can be reproduced from its seed. Implementations whose boards also
+ * depend on other state, such as {@link AdaptiveProblemGenerator}'s history,
+ * must say so.
+ */
+public interface ProblemGenerator
+{
+
+	/**
+	 * Generates the problems for one board.
+	 * @param numFamily The number family.
+	 * @param count The number of problems.
+	 * @param rng The random number generator to use.
+	 * @return The problems.
+	 */
+	public Problem[] generate(int numFamily, int count, SplittableRandom rng);
+
+	/**
+	 * Picks one problem, such as to replace a problem on a board.
+	 * @param numFamily The number family.
+	 * @param rng The random number generator to use.
+	 * @return The problem.
+	 */
+	public default Problem pick(int numFamily, SplittableRandom rng)
+	{
+		return generate(numFamily, 1, rng)[0];
+	}
+
+	/**
+	 * Generates the problems for one board from a seed.
+	 * @param numFamily The number family.
+	 * @param count The number of problems.
+	 * @param seed The seed.
+	 * @return The problems.
+	 */
+	public default Problem[] generate(int numFamily, int count, long seed)
+	{
+		return generate(numFamily, count, new SplittableRandom(seed));
+	}
+
+	/**
+	 * Generates many boards in parallel. Each board gets its own seed drawn from
+	 * the given seed, so the result is the same however many cores are used.
+	 * @param numFamily The number family.
+	 * @param count The number of problems on each board.
+	 * @param boards The number of boards.
+	 * @param seed The seed.
+	 * @return The boards.
+	 */
+	public default Problem[][] generateBoards(int numFamily, int count, int boards, long seed)
+	{
+		SplittableRandom seeds = new SplittableRandom(seed);
+		long[] boardSeeds = new long[boards];
+		for (int i = 0; i < boards; ++i)
+			boardSeeds[i] = seeds.nextLong();
+
+		Problem[][] result = new Problem[boards][];
+		IntStream.range(0, boards).parallel().forEach(
+				i -> result[i] = generate(numFamily, count, boardSeeds[i]));
+		return result;
+	}
+
+}
@@ -0,0 +1,260 @@
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+
+/**
+ * The measured text layout of a problem panel for one size and problem. Building
+ * it does all the font work up front, so painting an unchanged problem only
+ * draws cached glyphs.
+ */
+class ProblemLayout
+{
+
+	private static final String FONT_NAME = "Courier New";
+	private static final Color CORRECT_COLOR = new Color(32, 176, 32);
+	private static final Color INCORRECT_COLOR = Color.RED;
+
+	private final int width;
+	private final int height;
+	private final String problem;
+	private final int correctAnswer;
+	private final int answerLength;
+	private final FontRenderContext renderContext;
+
+	private final Font font;
+
+	private final GlyphVector problemGlyphs;
+	private final int problemX;
+	private final int problemY;
+
+	private final GlyphVector[] answerGlyphs = new GlyphVector[128];
+	private final int answerX;
+	private final int answerY;
+	private final int answerAdvance;
+	private final int answerCharWidth;
+	private final int ascent;
+	private final int descent;
+
+	private final int lastLineY;
+	private final GlyphVector correctGlyphs;
+	private final int correctX;
+	private final GlyphVector incorrectGlyphs;
+	private final int incorrectX;
+	private final GlyphVector correctAnswerGlyphs;
+	private final int correctAnswerX;
+
+	/**
+	 * Measures the layout of a problem panel.
+	 * @param g2 The graphics the panel will be painted with.
+	 * @param width The width of the panel.
+	 * @param height The height of the panel.
+	 * @param problem The problem text.
+	 * @param correctAnswer The answer shown when the problem is failed.
+	 * @param answerLength The number of characters in the answer.
+	 */
+	ProblemLayout(Graphics2D g2, int width, int height, String problem, int correctAnswer,
+			int answerLength)
+	{
+		this.width = width;
+		this.height = height;
+		this.problem = problem;
+		this.correctAnswer = correctAnswer;
+		this.answerLength = answerLength;
+		this.renderContext = g2.getFontRenderContext();
+
+		// resize the font according the dimension smaller than the ratio 16:9
+		int fontSize;
+		if (((double)width / height) < (16.0 / 9))
+			fontSize = width / 8;
+		else
+			fontSize = (int)(height / 4.5);
+
+		font = new Font(FONT_NAME, Font.PLAIN, fontSize);
+		FontMetrics metrics = g2.getFontMetrics(font);
+
+		int stringHeight = metrics.getHeight() * 6 / 5;
+		problemGlyphs = font.createGlyphVector(renderContext, problem);
+		problemX = (width - metrics.stringWidth(problem)) / 2;
+		problemY = (height / 2) - (stringHeight * 5 / 6);
+
+		// monospaced, so every answer character has the same width
+		answerCharWidth = metrics.charWidth('_');
+		int spaceWidth = (int)(answerCharWidth * 0.2);
+		answerAdvance = answerCharWidth + spaceWidth;
+		int answerWidth = answerCharWidth * answerLength + spaceWidth * (answerLength - 1);
+		answerX = (width - answerWidth) / 2;
+		answerY = problemY + stringHeight;
+		ascent = metrics.getAscent();
+		descent = metrics.getDescent();
+
+		lastLineY = answerY + stringHeight;
+		correctGlyphs = font.createGlyphVector(renderContext, "Correct!");
+		correctX = (width - metrics.stringWidth("Correct!")) / 2;
+		incorrectGlyphs = font.createGlyphVector(renderContext, "Incorrect");
+		incorrectX = (width - metrics.stringWidth("Incorrect")) / 2;
+		String correctAnswerLine = "(" + correctAnswer + ")";
+		correctAnswerGlyphs = font.createGlyphVector(renderContext, correctAnswerLine);
+		correctAnswerX = (width - metrics.stringWidth(correctAnswerLine)) / 2;
+	}
+
+	/**
+	 * Checks whether this layout can be used to paint a panel.
+	 * @param g2 The graphics the panel is being painted with.
+	 * @param width The width of the panel.
+	 * @param height The height of the panel.
+	 * @param problem The problem text.
+	 * @param correctAnswer The answer shown when the problem is failed.
+	 * @param answerLength The number of characters in the answer.
+	 * @return Whether the layout still fits.
+	 */
+	boolean matches(Graphics2D g2, int width, int height, String problem, int correctAnswer,
+			int answerLength)
+	{
+		return this.width == width
+				&& this.height == height
+				&& this.problem.equals(problem)
+				&& this.correctAnswer == correctAnswer
+				&& this.answerLength == answerLength
+				&& renderContext.equals(g2.getFontRenderContext());
+	}
+
+	/**
+	 * Draws the whole panel for a problem: the problem, the answer so far in the
+	 * color its state calls for, how it was marked, and the border.
+	 * @param g2 The graphics to draw with.
+	 * @param answer The answer typed so far.
+	 * @param problemState The state of the problem.
+	 * @param caret The caret character to show, or a space for none.
+	 */
+	void drawPanel(Graphics2D g2, AnswerBuffer answer, ProblemState problemState, char caret)
+	{
+		drawProblem(g2);
+
+		g2.setColor(problemState == ProblemState.INCORRECT_FINAL ? INCORRECT_COLOR : Color.BLACK);
+		for (int i = 0; i < answer.getWidth(); ++i)
+			drawAnswerChar(g2, i, answer.getDisplayChar(i, caret));
+
+		switch (problemState)
+		{
+			case CORRECT:
+				g2.setColor(CORRECT_COLOR);
+				drawCorrect(g2);
+				break;
+			case INCORRECT:
+				g2.setColor(INCORRECT_COLOR);
+				drawIncorrect(g2);
+				break;
+			case INCORRECT_FINAL:
+				g2.setColor(CORRECT_COLOR);
+				drawCorrectAnswer(g2);
+				break;
+			default:
+				// do nothing
+				break;
+		}
+
+		g2.setColor(Color.BLACK);
+		g2.drawRect(0, 0, width - 1, height - 1);
+	}
+
+	/**
+	 * Draws the problem text.
+	 * @param g2 The graphics to draw with.
+	 */
+	void drawProblem(Graphics2D g2)
+	{
+		g2.drawGlyphVector(problemGlyphs, problemX, problemY);
+	}
+	/**
+	 * Draws one character of the answer.
+	 * @param g2 The graphics to draw with.
+	 * @param index The index of the character in the answer.
+	 * @param c The character.
+	 */
+	void drawAnswerChar(Graphics2D g2, int index, char c)
+	{
+		GlyphVector glyphs;
+		if (c < answerGlyphs.length)
+		{
+			glyphs = answerGlyphs[c];
+			if (glyphs == null)
+				glyphs = answerGlyphs[c] = font.createGlyphVector(renderContext, new char[] { c });
+		}
+		else
+		{
+			glyphs = font.createGlyphVector(renderContext, new char[] { c });
+		}
+
+		g2.drawGlyphVector(glyphs, answerX + index * answerAdvance, answerY);
+	}
+	/**
+	 * Draws "Correct!" under the answer.
+	 * @param g2 The graphics to draw with.
+	 */
+	void drawCorrect(Graphics2D g2)
+	{
+		g2.drawGlyphVector(correctGlyphs, correctX, lastLineY);
+	}
+	/**
+	 * Draws "Incorrect" under the answer.
+	 * @param g2 The graphics to draw with.
+	 */
+	void drawIncorrect(Graphics2D g2)
+	{
+		g2.drawGlyphVector(incorrectGlyphs, incorrectX, lastLineY);
+	}
+	/**
+	 * Draws the correct answer in parentheses under the answer.
+	 * @param g2 The graphics to draw with.
+	 */
+	void drawCorrectAnswer(Graphics2D g2)
+	{
+		g2.drawGlyphVector(correctAnswerGlyphs, correctAnswerX, lastLineY);
+	}
+
+	/**
+	 * Gets the x coordinate of an answer character's left edge.
+	 * @param index The index of the character in the answer.
+	 * @return The x coordinate.
+	 */
+	int getAnswerCharX(int index)
+	{
+		return answerX + index * answerAdvance;
+	}
+	/**
+	 * Gets the distance from one answer character to the next.
+	 * @return The advance in pixels.
+	 */
+	int getAnswerAdvance()
+	{
+		return answerAdvance;
+	}
+	/**
+	 * Gets the width of one answer character.
+	 * @return The width in pixels.
+	 */
+	int getAnswerCharWidth()
+	{
+		return answerCharWidth;
+	}
+	/**
+	 * Gets the top of the answer line.
+	 * @return The y coordinate.
+	 */
+	int getAnswerTop()
+	{
+		return answerY - ascent;
+	}
+	/**
+	 * Gets the height of the answer line.
+	 * @return The height in pixels.
+	 */
+	int getAnswerHeight()
+	{
+		return ascent + descent;
+	}
+
+}
@@ -6,6 +6,8 @@ public class ProblemPanelEvent
 {
 	
 	private MathProblemPanel sender;
+	private Problem problem;
+	private int answerGiven;
 	private boolean isCorrect;
 	private int triesTaken;
 	private long nanosTaken;
@@ -13,14 +15,20 @@ public class ProblemPanelEvent
 	/**
 	 * Initializes a ProblemPanelEvent.
 	 * @param sender The source of the event.
+	 * @param problem The problem that was answered.
+	 * @param answerGiven The last answer given.
 	 * @param isCorrect Whether the problem was answered correctly.
 	 * @param triesTaken The number of tries taken.
 	 * @param nanosTaken The number of nanoseconds taken.
 	 */
-	public ProblemPanelEvent(MathProblemPanel sender, boolean isCorrect, int triesTaken, long nanosTaken)
+	public ProblemPanelEvent(MathProblemPanel sender, Problem problem, int answerGiven,
+			boolean isCorrect, int triesTaken, long nanosTaken)
 	{
 		this.sender = sender;
+		this.problem = problem;
+		this.answerGiven = answerGiven;
 		this.isCorrect = isCorrect;
+		this.triesTaken = triesTaken;
 		this.nanosTaken = nanosTaken;
 	}
 	
@@ -32,6 +40,22 @@ public class ProblemPanelEvent
 	{
 		return sender;
 	}
+	/**
+	 * Gets the problem that was answered.
+	 * @return The problem.
+	 */
+	public Problem getProblem()
+	{
+		return problem;
+	}
+	/**
+	 * Gets the last answer given.
+	 * @return The answer given.
+	 */
+	public int getAnswerGiven()
+	{
+		return answerGiven;
+	}
 	/**
 	 * Gets whether the problem was answered correctly.
 	 * @return Whether the problem was answered correctly.
@@ -0,0 +1,10 @@
+/**
+ * How far along the problem on a tile is.
+ */
+public enum ProblemState
+{
+	NORMAL,
+	CORRECT,
+	INCORRECT,
+	INCORRECT_FINAL
+}
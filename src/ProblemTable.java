@@ -0,0 +1,153 @@
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Every valid problem for each problem type and number family, built once and
+ * shared. Boards are dealt from the tables without replacement, so a fact only
+ * repeats on a board when there are more tiles than problems.
+ */
+public class ProblemTable
+{
+
+	/**
+	 * The largest number paired with the number family.
+	 */
+	public static final int NUMBER_MAX = 12;
+
+	private static final ConcurrentHashMap<Long, Problem[]> tables
+			= new ConcurrentHashMap<Long, Problem[]>();
+
+	private ProblemTable() { }
+
+	/**
+	 * Gets every problem for a type and number family. The array is shared, so
+	 * don't change it.
+	 * @param type The problem type.
+	 * @param numFamily The number family.
+	 * @return The problems.
+	 */
+	public static Problem[] get(ProblemType type, int numFamily)
+	{
+		long key = ((long) numFamily << 8) | type.ordinal();
+		return tables.computeIfAbsent(key, k -> build(type, numFamily));
+	}
+
+	/**
+	 * Gets the largest answer of any problem of the given types.
+	 * @param types The problem type(s).
+	 * @param numFamily The number family.
+	 * @return The largest answer.
+	 */
+	public static int getMaxAnswer(List<ProblemType> types, int numFamily)
+	{
+		int max = 0;
+		for (ProblemType type : types)
+			for (Problem problem : get(type, numFamily))
+				max = Math.max(max, problem.getAnswer());
+		return max;
+	}
+
+	/**
+	 * Picks one problem at random.
+	 * @param types The problem type(s) to pick from, each equally likely.
+	 * @param numFamily The number family.
+	 * @param rng The random number generator.
+	 * @return The problem.
+	 */
+	public static Problem pick(List<ProblemType> types, int numFamily, SplittableRandom rng)
+	{
+		Problem[] table = get(types.get(rng.nextInt(types.size())), numFamily);
+		return table[rng.nextInt(table.length)];
+	}
+
+	/**
+	 * Deals a board of problems by sampling the tables of all the given types
+	 * without replacement. Once every problem has been dealt, the tables are
+	 * reshuffled and dealt again.
+	 * @param types The problem type(s).
+	 * @param numFamily The number family.
+	 * @param count The number of problems to deal.
+	 * @param rng The random number generator.
+	 * @return The problems.
+	 */
+	public static Problem[] deal(ProblemType[] types, int numFamily, int count,
+			SplittableRandom rng)
+	{
+		int poolSize = 0;
+		for (ProblemType type : types)
+			poolSize += get(type, numFamily).length;
+
+		Problem[] pool = new Problem[poolSize];
+		int poolIndex = 0;
+		for (ProblemType type : types)
+		{
+			Problem[] table = get(type, numFamily);
+			System.arraycopy(table, 0, pool, poolIndex, table.length);
+			poolIndex += table.length;
+		}
+
+		Problem[] board = new Problem[count];
+		int dealt = 0;
+		while (dealt < count)
+		{
+			// partial Fisher-Yates shuffle, stopping once the board is full
+			int pass = Math.min(pool.length, count - dealt);
+			for (int i = 0; i < pass; ++i)
+			{
+				int j = i + rng.nextInt(pool.length - i);
+				Problem swap = pool[i];
+				pool[i] = pool[j];
+				pool[j] = swap;
+
+				board[dealt++] = pool[i];
+			}
+		}
+
+		return board;
+	}
+
+	private static Problem[] build(ProblemType type, int numFamily)
+	{
+		switch (type)
+		{
+			case ADDITION:
+			case MULTIPLICATION:
+			{
+				Problem[] table = new Problem[NUMBER_MAX + 1];
+				for (int i = 0; i <= NUMBER_MAX; ++i)
+					table[i] = new Problem(type, i, numFamily);
+				return table;
+			}
+			case SUBTRACTION:
+			{
+				// the larger number goes first so the answer is never negative
+				Problem[] table = new Problem[NUMBER_MAX + 1];
+				for (int i = 0; i <= NUMBER_MAX; ++i)
+				{
+					if (i > numFamily)
+						table[i] = new Problem(type, i, numFamily);
+					else
+						table[i] = new Problem(type, numFamily, i);
+				}
+				return table;
+			}
+			case DIVISION:
+			{
+				// the divisor can't be 0
+				Problem[] table = new Problem[NUMBER_MAX];
+				for (int i = 1; i <= NUMBER_MAX; ++i)
+				{
+					if (numFamily == 0)
+						table[i - 1] = new Problem(type, 0, i);
+					else
+						table[i - 1] = new Problem(type, numFamily * i, numFamily);
+				}
+				return table;
+			}
+			default:
+				throw new IllegalArgumentException("Unknown problem type " + type);
+		}
+	}
+
+}
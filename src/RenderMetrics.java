@@ -0,0 +1,362 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Records where rendering time goes: a paint time histogram for each
+ * {@link PanelState}, the board layout time, and counters for paints, scaled
+ * images and tiles. There is one instance for the whole program, which
+ * {@link #register()} publishes over JMX so it can be watched in jconsole.
+ */
+public class RenderMetrics implements RenderMetricsMBean
+{
+
+	/**
+	 * The name the metrics are published under.
+	 */
+	public static final String OBJECT_NAME = "MathGame:type=RenderMetrics";
+
+	private static final long NANOS_PER_SECOND = 1000000000L;
+
+	private static final RenderMetrics instance = new RenderMetrics();
+
+	private final LatencyHistogram[] paintTimes = new LatencyHistogram[PanelState.values().length];
+	private final LatencyHistogram layoutTimes = new LatencyHistogram();
+	private final LatencyHistogram frameIntervals = new LatencyHistogram();
+
+	private final AtomicLong scaledImageCount = new AtomicLong();
+	private final AtomicLong scaledImageNanos = new AtomicLong();
+	private final AtomicLong acceleratedImageFillCount = new AtomicLong();
+	private final AtomicLong tilesCreated = new AtomicLong();
+	private final AtomicLong repaintRequestCount = new AtomicLong();
+	private final AtomicLong repaintCount = new AtomicLong();
+	private final AtomicLong droppedFrameCount = new AtomicLong();
+
+	// paints are counted per wall clock second, on the event dispatch thread
+	private long currentSecond;
+	private long currentSecondPaints;
+	private volatile long lastSecond;
+	private volatile long lastSecondPaints;
+
+	private RenderMetrics()
+	{
+		for (int i = 0; i < paintTimes.length; ++i)
+			paintTimes[i] = new LatencyHistogram();
+	}
+
+	/**
+	 * Gets the metrics for the program.
+	 * @return The metrics.
+	 */
+	public static RenderMetrics get()
+	{
+		return instance;
+	}
+
+	/**
+	 * Publishes the metrics with the platform MBean server. Does nothing if they
+	 * are already published.
+	 */
+	public static void register()
+	{
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if (!server.isRegistered(name))
+				server.registerMBean(instance, name);
+		}
+		catch (JMException e)
+		{
+			System.err.println("Couldn't publish render metrics: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Records painting a problem panel. Call this on the event dispatch thread.
+	 * @param state What the panel painted.
+	 * @param nanos How long it took.
+	 */
+	public void recordPaint(PanelState state, long nanos)
+	{
+		paintTimes[state.ordinal()].record(nanos);
+
+		long second = System.nanoTime() / NANOS_PER_SECOND;
+		if (second != currentSecond)
+		{
+			lastSecondPaints = second == currentSecond + 1 ? currentSecondPaints : 0;
+			lastSecond = second - 1;
+			currentSecond = second;
+			currentSecondPaints = 0;
+		}
+		++currentSecondPaints;
+	}
+	/**
+	 * Records laying out the game board.
+	 * @param nanos How long it took.
+	 */
+	public void recordLayout(long nanos)
+	{
+		layoutTimes.record(nanos);
+	}
+	/**
+	 * Records scaling an image to the size of a panel.
+	 * @param nanos How long it took.
+	 */
+	public void recordScaledImage(long nanos)
+	{
+		scaledImageCount.incrementAndGet();
+		scaledImageNanos.addAndGet(nanos);
+	}
+	/**
+	 * Records copying a scaled image into accelerated memory.
+	 */
+	public void recordAcceleratedImageFill()
+	{
+		acceleratedImageFillCount.incrementAndGet();
+	}
+	/**
+	 * Records making tiles of a game image.
+	 * @param count The number of tiles.
+	 */
+	public void recordTilesCreated(int count)
+	{
+		tilesCreated.addAndGet(count);
+	}
+	/**
+	 * Records a batch of repaint requests being merged.
+	 * @param requested The number of repaints asked for.
+	 * @param issued The number of repaints passed on to Swing.
+	 */
+	public void recordRepaints(long requested, int issued)
+	{
+		repaintRequestCount.addAndGet(requested);
+		repaintCount.addAndGet(issued);
+	}
+	/**
+	 * Records a frame of an {@link AnimationClock}.
+	 * @param intervalNanos The time since the clock's last frame.
+	 * @param dropped The number of frames skipped since the last frame.
+	 */
+	public void recordFrame(long intervalNanos, long dropped)
+	{
+		frameIntervals.record(intervalNanos);
+		droppedFrameCount.addAndGet(dropped);
+	}
+
+	/**
+	 * Gets the paint time histogram for a panel state.
+	 * @param state The panel state.
+	 * @return The histogram.
+	 */
+	public LatencyHistogram getPaintTimes(PanelState state)
+	{
+		return paintTimes[state.ordinal()];
+	}
+	/**
+	 * Gets the board layout time histogram.
+	 * @return The histogram.
+	 */
+	public LatencyHistogram getLayoutTimes()
+	{
+		return layoutTimes;
+	}
+	/**
+	 * Gets the histogram of times between animation frames.
+	 * @return The histogram.
+	 */
+	public LatencyHistogram getFrameIntervals()
+	{
+		return frameIntervals;
+	}
+
+	private static double toMicros(double nanos)
+	{
+		return nanos / 1000;
+	}
+
+	@Override
+	public long getCoverPaintCount()
+	{
+		return getPaintTimes(PanelState.COVER).getCount();
+	}
+	@Override
+	public double getCoverPaintMeanMicros()
+	{
+		return toMicros(getPaintTimes(PanelState.COVER).getMeanNanos());
+	}
+	@Override
+	public double getCoverPaintP50Micros()
+	{
+		return toMicros(getPaintTimes(PanelState.COVER).getPercentileNanos(0.5));
+	}
+	@Override
+	public double getCoverPaintP99Micros()
+	{
+		return toMicros(getPaintTimes(PanelState.COVER).getPercentileNanos(0.99));
+	}
+	@Override
+	public double getCoverPaintMaxMicros()
+	{
+		return toMicros(getPaintTimes(PanelState.COVER).getMaxNanos());
+	}
+
+	@Override
+	public long getProblemPaintCount()
+	{
+		return getPaintTimes(PanelState.PROBLEM).getCount();
+	}
+	@Override
+	public double getProblemPaintMeanMicros()
+	{
+		return toMicros(getPaintTimes(PanelState.PROBLEM).getMeanNanos());
+	}
+	@Override
+	public double getProblemPaintP50Micros()
+	{
+		return toMicros(getPaintTimes(PanelState.PROBLEM).getPercentileNanos(0.5));
+	}
+	@Override
+	public double getProblemPaintP99Micros()
+	{
+		return toMicros(getPaintTimes(PanelState.PROBLEM).getPercentileNanos(0.99));
+	}
+	@Override
+	public double getProblemPaintMaxMicros()
+	{
+		return toMicros(getPaintTimes(PanelState.PROBLEM).getMaxNanos());
+	}
+
+	@Override
+	public long getImagePaintCount()
+	{
+		return getPaintTimes(PanelState.IMAGE).getCount();
+	}
+	@Override
+	public double getImagePaintMeanMicros()
+	{
+		return toMicros(getPaintTimes(PanelState.IMAGE).getMeanNanos());
+	}
+	@Override
+	public double getImagePaintP50Micros()
+	{
+		return toMicros(getPaintTimes(PanelState.IMAGE).getPercentileNanos(0.5));
+	}
+	@Override
+	public double getImagePaintP99Micros()
+	{
+		return toMicros(getPaintTimes(PanelState.IMAGE).getPercentileNanos(0.99));
+	}
+	@Override
+	public double getImagePaintMaxMicros()
+	{
+		return toMicros(getPaintTimes(PanelState.IMAGE).getMaxNanos());
+	}
+
+	@Override
+	public long getLayoutCount()
+	{
+		return layoutTimes.getCount();
+	}
+	@Override
+	public double getLayoutMeanMicros()
+	{
+		return toMicros(layoutTimes.getMeanNanos());
+	}
+	@Override
+	public double getLayoutP50Micros()
+	{
+		return toMicros(layoutTimes.getPercentileNanos(0.5));
+	}
+	@Override
+	public double getLayoutP99Micros()
+	{
+		return toMicros(layoutTimes.getPercentileNanos(0.99));
+	}
+	@Override
+	public double getLayoutMaxMicros()
+	{
+		return toMicros(layoutTimes.getMaxNanos());
+	}
+
+	/**
+	 * Gets the number of panel paints in the last full second.
+	 */
+	@Override
+	public long getPaintsPerSecond()
+	{
+		// nothing painted since then means nothing is being painted now
+		long second = System.nanoTime() / NANOS_PER_SECOND;
+		return second - lastSecond <= 2 ? lastSecondPaints : 0;
+	}
+	@Override
+	public long getScaledImageCount()
+	{
+		return scaledImageCount.get();
+	}
+	@Override
+	public double getScaledImageTotalMillis()
+	{
+		return scaledImageNanos.get() / 1e6;
+	}
+	@Override
+	public long getAcceleratedImageFillCount()
+	{
+		return acceleratedImageFillCount.get();
+	}
+	@Override
+	public long getTilesCreated()
+	{
+		return tilesCreated.get();
+	}
+	@Override
+	public long getRepaintRequestCount()
+	{
+		return repaintRequestCount.get();
+	}
+	@Override
+	public long getRepaintCount()
+	{
+		return repaintCount.get();
+	}
+	@Override
+	public long getFrameCount()
+	{
+		return frameIntervals.getCount();
+	}
+	@Override
+	public long getDroppedFrameCount()
+	{
+		return droppedFrameCount.get();
+	}
+	@Override
+	public double getFrameIntervalMeanMicros()
+	{
+		return toMicros(frameIntervals.getMeanNanos());
+	}
+	@Override
+	public double getFrameIntervalP99Micros()
+	{
+		return toMicros(frameIntervals.getPercentileNanos(0.99));
+	}
+
+	@Override
+	public void reset()
+	{
+		for (LatencyHistogram histogram : paintTimes)
+			histogram.reset();
+		layoutTimes.reset();
+		frameIntervals.reset();
+		scaledImageCount.set(0);
+		scaledImageNanos.set(0);
+		acceleratedImageFillCount.set(0);
+		tilesCreated.set(0);
+		repaintRequestCount.set(0);
+		repaintCount.set(0);
+		droppedFrameCount.set(0);
+	}
+
+}
@@ -0,0 +1,49 @@
+/**
+ * The rendering metrics published over JMX. Times are in microseconds.
+ */
+public interface RenderMetricsMBean
+{
+
+	public long getCoverPaintCount();
+	public double getCoverPaintMeanMicros();
+	public double getCoverPaintP50Micros();
+	public double getCoverPaintP99Micros();
+	public double getCoverPaintMaxMicros();
+
+	public long getProblemPaintCount();
+	public double getProblemPaintMeanMicros();
+	public double getProblemPaintP50Micros();
+	public double getProblemPaintP99Micros();
+	public double getProblemPaintMaxMicros();
+
+	public long getImagePaintCount();
+	public double getImagePaintMeanMicros();
+	public double getImagePaintP50Micros();
+	public double getImagePaintP99Micros();
+	public double getImagePaintMaxMicros();
+
+	public long getLayoutCount();
+	public double getLayoutMeanMicros();
+	public double getLayoutP50Micros();
+	public double getLayoutP99Micros();
+	public double getLayoutMaxMicros();
+
+	public long getPaintsPerSecond();
+	public long getScaledImageCount();
+	public double getScaledImageTotalMillis();
+	public long getAcceleratedImageFillCount();
+	public long getTilesCreated();
+	public long getRepaintRequestCount();
+	public long getRepaintCount();
+
+	public long getFrameCount();
+	public long getDroppedFrameCount();
+	public double getFrameIntervalMeanMicros();
+	public double getFrameIntervalP99Micros();
+
+	/**
+	 * Clears all histograms and counters.
+	 */
+	public void reset();
+
+}
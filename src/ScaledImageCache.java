@@ -0,0 +1,176 @@
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+
+/**
+ * Holds an image scaled to the size of a component so it can be painted with a
+ * single blit. The scaled copy is only rebuilt when the size, the HiDPI scale,
+ * or the source image changes.
+ */
+public class ScaledImageCache
+{
+
+	private Image source;
+
+	private int pixelWidth;
+	private int pixelHeight;
+	private BufferedImage scaled;
+	private VolatileImage accelerated;
+
+	/**
+	 * Initializes an empty ScaledImageCache.
+	 */
+	public ScaledImageCache() { }
+	/**
+	 * Initializes a ScaledImageCache for the given image.
+	 * @param source The image to scale.
+	 */
+	public ScaledImageCache(Image source)
+	{
+		this.source = source;
+	}
+
+	/**
+	 * Gets the image being scaled.
+	 * @return The source image.
+	 */
+	public Image getSource()
+	{
+		return source;
+	}
+	/**
+	 * Sets the image to scale and throws away any scaled copy.
+	 * @param source The source image.
+	 */
+	public void setSource(Image source)
+	{
+		this.source = source;
+		invalidate();
+	}
+
+	/**
+	 * Throws away the scaled copy so the next paint rebuilds it.
+	 */
+	public void invalidate()
+	{
+		scaled = null;
+		pixelWidth = 0;
+		pixelHeight = 0;
+		if (accelerated != null)
+		{
+			accelerated.flush();
+			accelerated = null;
+		}
+	}
+
+	/**
+	 * Paints the source image stretched to the given size.
+	 * @param g2 The graphics to paint with.
+	 * @param width The width to paint, in user space.
+	 * @param height The height to paint, in user space.
+	 * @param component The component being painted on.
+	 */
+	public void paint(Graphics2D g2, int width, int height, Component component)
+	{
+		if (source == null || width <= 0 || height <= 0)
+			return;
+
+		// size the copy in device pixels so HiDPI screens get full resolution
+		AffineTransform transform = g2.getTransform();
+		int newPixelWidth = (int) Math.ceil(width * Math.abs(transform.getScaleX()));
+		int newPixelHeight = (int) Math.ceil(height * Math.abs(transform.getScaleY()));
+
+		if (scaled == null || newPixelWidth != pixelWidth || newPixelHeight != pixelHeight)
+		{
+			invalidate();
+			pixelWidth = Math.max(newPixelWidth, 1);
+			pixelHeight = Math.max(newPixelHeight, 1);
+			long startNanos = System.nanoTime();
+			scaled = scale(source, pixelWidth, pixelHeight);
+			RenderMetrics.get().recordScaledImage(System.nanoTime() - startNanos);
+		}
+
+		GraphicsConfiguration config = component.getGraphicsConfiguration();
+		if (config == null)
+		{
+			g2.drawImage(scaled, 0, 0, width, height, null);
+			return;
+		}
+
+		do
+		{
+			int valid = accelerated == null ? VolatileImage.IMAGE_INCOMPATIBLE
+					: accelerated.validate(config);
+			if (valid == VolatileImage.IMAGE_INCOMPATIBLE)
+			{
+				if (accelerated != null)
+					accelerated.flush();
+				accelerated = config.createCompatibleVolatileImage(
+						pixelWidth, pixelHeight, Transparency.OPAQUE);
+				if (accelerated == null)
+				{
+					g2.drawImage(scaled, 0, 0, width, height, null);
+					return;
+				}
+			}
+			// a new or restored surface is blank; validate has already cleared
+			// the lost flag, so contentsLost() can't be relied on to say so
+			if (valid != VolatileImage.IMAGE_OK)
+				fillAccelerated();
+
+			g2.drawImage(accelerated, 0, 0, width, height, null);
+		}
+		while (accelerated.contentsLost());
+	}
+
+	private void fillAccelerated()
+	{
+		Graphics2D g2 = accelerated.createGraphics();
+		g2.drawImage(scaled, 0, 0, null);
+		g2.dispose();
+		RenderMetrics.get().recordAcceleratedImageFill();
+	}
+
+	/**
+	 * Scales an image by repeated halving so downscaling keeps detail, similar to
+	 * area averaging but without going through the asynchronous image producers.
+	 */
+	static BufferedImage scale(Image source, int width, int height)
+	{
+		Image current = source;
+		int currentWidth = source.getWidth(null);
+		int currentHeight = source.getHeight(null);
+
+		do
+		{
+			if (currentWidth > width * 2)
+				currentWidth /= 2;
+			else
+				currentWidth = width;
+			if (currentHeight > height * 2)
+				currentHeight /= 2;
+			else
+				currentHeight = height;
+
+			BufferedImage step = new BufferedImage(currentWidth, currentHeight,
+					BufferedImage.TYPE_INT_RGB);
+			Graphics2D g2 = step.createGraphics();
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+					RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g2.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+			g2.dispose();
+
+			current = step;
+		}
+		while (currentWidth != width || currentHeight != height);
+
+		return (BufferedImage) current;
+	}
+
+}
@@ -0,0 +1,275 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An append-only log of every problem answered, kept as fixed-width binary
+ * records in memory-mapped segment files.
+ * <p>
+ * Appending only queues the record, and a background thread copies it into the
+ * mapped segment, so the event dispatch thread never waits on the disk. Each
+ * record's last byte is written after the rest of it, so a record cut off by a
+ * crash is never read back. A full segment is flushed and a new one started.
+ * Segments are named by sequence number, are big-endian and laid out as:
+ * <pre>
+ * int    magic ('MGSL')
+ * int    version
+ * int    record size
+ * int    records in the segment
+ * 16 bytes reserved
+ * for each record:
+ *   long timestamp in milliseconds since the epoch
+ *   long nanoseconds taken
+ *   int  first number
+ *   int  second number
+ *   int  answer given
+ *   byte problem type ordinal
+ *   byte 1 if correct, otherwise 0
+ *   byte tries taken
+ *   byte 1 once the record is written, otherwise 0
+ * </pre>
+ * Read logs with {@link SessionLogReader}.
+ */
+public class SessionLog implements Closeable
+{
+
+	static final int MAGIC = 0x4D47534C; // "MGSL"
+	static final int VERSION = 1;
+	static final String EXTENSION = ".mglog";
+	static final int HEADER_SIZE = 32;
+	static final int RECORD_SIZE = 32;
+
+	static final int TIMESTAMP_OFFSET = 0;
+	static final int NANOS_OFFSET = 8;
+	static final int FIRST_NUM_OFFSET = 16;
+	static final int SECOND_NUM_OFFSET = 20;
+	static final int ANSWER_OFFSET = 24;
+	static final int TYPE_OFFSET = 28;
+	static final int CORRECT_OFFSET = 29;
+	static final int TRIES_OFFSET = 30;
+	static final int COMMIT_OFFSET = 31;
+	static final byte COMMITTED = 1;
+
+	/**
+	 * The number of records in a segment unless another is given.
+	 */
+	public static final int DEFAULT_SEGMENT_RECORDS = 4096;
+
+	private final File directory;
+	private final int segmentRecords;
+	private final ExecutorService writer;
+
+	// only touched by the writer thread
+	private long nextSequence;
+	private MappedByteBuffer segment;
+	private int recordCount;
+
+	/**
+	 * Opens a log in a directory with segments of the default size.
+	 * @param directory The directory, which is created if needed.
+	 * @throws IOException If the directory can't be created.
+	 */
+	public SessionLog(File directory) throws IOException
+	{
+		this(directory, DEFAULT_SEGMENT_RECORDS);
+	}
+	/**
+	 * Opens a log in a directory. New records go in new segments after any
+	 * already there.
+	 * @param directory The directory, which is created if needed.
+	 * @param segmentRecords The number of records in each segment.
+	 * @throws IOException If the directory can't be created.
+	 */
+	public SessionLog(File directory, int segmentRecords) throws IOException
+	{
+		if (segmentRecords < 1)
+			throw new IllegalArgumentException("Segments must hold at least one record");
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Couldn't create " + directory);
+
+		this.directory = directory;
+		this.segmentRecords = segmentRecords;
+
+		long lastSequence = -1;
+		for (File file : getSegments(directory))
+			lastSequence = Math.max(lastSequence, getSequence(file));
+		nextSequence = lastSequence + 1;
+
+		writer = Executors.newSingleThreadExecutor(runnable ->
+		{
+			Thread thread = new Thread(runnable, "session-log");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Gets the directory the segments are in.
+	 * @return The directory.
+	 */
+	public File getDirectory()
+	{
+		return directory;
+	}
+
+	/**
+	 * Queues a record to be written. Returns right away. Does nothing once the
+	 * log is closed.
+	 * @param timestamp When the problem was finished, in milliseconds since the
+	 * epoch.
+	 * @param problem The problem.
+	 * @param answerGiven The last answer given.
+	 * @param correct Whether the problem was answered correctly.
+	 * @param tries The number of tries taken.
+	 * @param nanos The time taken in nanoseconds.
+	 */
+	public void append(long timestamp, Problem problem, int answerGiven, boolean correct,
+			int tries, long nanos)
+	{
+		submit(() ->
+		{
+			try
+			{
+				write(timestamp, problem, answerGiven, correct, tries, nanos);
+			}
+			catch (IOException e)
+			{
+				System.err.println("Couldn't write session log: " + e.getMessage());
+			}
+		});
+	}
+
+	/**
+	 * Writes everything queued so far and forces it to disk. Returns right away.
+	 * Does nothing once the log is closed.
+	 */
+	public void flush()
+	{
+		submit(this::force);
+	}
+
+	/**
+	 * Writes everything queued so far, forces it to disk, and stops the writer.
+	 * Records appended afterward are dropped. Closing again does nothing.
+	 */
+	@Override
+	public void close()
+	{
+		submit(this::force);
+		writer.shutdown();
+		try
+		{
+			writer.awaitTermination(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void submit(Runnable task)
+	{
+		try
+		{
+			writer.execute(task);
+		}
+		catch (RejectedExecutionException e)
+		{
+			// closed, maybe while the game was still answering on another thread
+		}
+	}
+
+	private void write(long timestamp, Problem problem, int answerGiven, boolean correct,
+			int tries, long nanos) throws IOException
+	{
+		if (segment == null || recordCount == segmentRecords)
+			roll();
+
+		int offset = HEADER_SIZE + recordCount * RECORD_SIZE;
+		segment.putLong(offset + TIMESTAMP_OFFSET, timestamp);
+		segment.putLong(offset + NANOS_OFFSET, nanos);
+		segment.putInt(offset + FIRST_NUM_OFFSET, problem.getFirstNum());
+		segment.putInt(offset + SECOND_NUM_OFFSET, problem.getSecondNum());
+		segment.putInt(offset + ANSWER_OFFSET, answerGiven);
+		segment.put(offset + TYPE_OFFSET, (byte) problem.getType().ordinal());
+		segment.put(offset + CORRECT_OFFSET, (byte) (correct ? 1 : 0));
+		segment.put(offset + TRIES_OFFSET, (byte) Math.min(tries, Byte.MAX_VALUE));
+		// last, so a half-written record is never read
+		segment.put(offset + COMMIT_OFFSET, COMMITTED);
+
+		++recordCount;
+	}
+
+	private void roll() throws IOException
+	{
+		force();
+
+		long size = HEADER_SIZE + (long) segmentRecords * RECORD_SIZE;
+		MappedByteBuffer next = null;
+		while (next == null)
+		{
+			File file = new File(directory, String.format("%012d%s", nextSequence++, EXTENSION));
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.READ, StandardOpenOption.WRITE))
+			{
+				// the mapping stays valid after the channel is closed
+				next = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+			}
+			catch (FileAlreadyExistsException e)
+			{
+				// another game is logging to the same directory, so skip its segment
+			}
+		}
+		segment = next;
+
+		segment.putInt(0, MAGIC);
+		segment.putInt(4, VERSION);
+		segment.putInt(8, RECORD_SIZE);
+		segment.putInt(12, segmentRecords);
+		recordCount = 0;
+	}
+
+	private void force()
+	{
+		if (segment != null)
+			segment.force();
+	}
+
+	/**
+	 * Gets the segment files in a directory in the order they were written.
+	 * @param directory The directory.
+	 * @return The segment files.
+	 */
+	static File[] getSegments(File directory)
+	{
+		File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+		if (files == null)
+			return new File[0];
+
+		Arrays.sort(files, (a, b) -> Long.compare(getSequence(a), getSequence(b)));
+		return files;
+	}
+
+	private static long getSequence(File segment)
+	{
+		String name = segment.getName();
+		try
+		{
+			return Long.parseLong(name.substring(0, name.length() - EXTENSION.length()));
+		}
+		catch (NumberFormatException e)
+		{
+			return -1;
+		}
+	}
+
+}
@@ -0,0 +1,231 @@
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads back the records of a {@link SessionLog}, oldest first.
+ * <p>
+ * The reader is a cursor: {@link #next()} moves to the next record and the
+ * getters read its fields straight from the mapped segment, so scanning a log
+ * allocates nothing per record. Records that were never finished, such as the
+ * rest of a segment still being written, are skipped.
+ */
+public class SessionLogReader implements Closeable
+{
+
+	private static final ProblemType[] TYPES = ProblemType.values();
+
+	private final File[] segments;
+	private int segmentIndex = -1;
+
+	private MappedByteBuffer segment;
+	private int recordSize;
+	private int recordCount;
+	private int record;
+	private int offset;
+
+	/**
+	 * Opens the log in a directory.
+	 * @param directory The directory.
+	 */
+	public SessionLogReader(File directory)
+	{
+		segments = SessionLog.getSegments(directory);
+	}
+
+	/**
+	 * Moves to the next record.
+	 * @return Whether there is another record.
+	 * @throws IOException If a segment can't be read, isn't a valid segment, or has a bad record.
+	 */
+	public boolean next() throws IOException
+	{
+		while (true)
+		{
+			if (segment != null && record + 1 < recordCount)
+			{
+				int nextOffset = offset + recordSize;
+				if (segment.get(nextOffset + SessionLog.COMMIT_OFFSET) == SessionLog.COMMITTED)
+				{
+					// checked here so getType() can't fail partway through a scan
+					int type = segment.get(nextOffset + SessionLog.TYPE_OFFSET);
+					if (type < 0 || type >= TYPES.length)
+						throw new IOException("Bad problem type " + type + " in " + segments[segmentIndex]);
+
+					++record;
+					offset = nextOffset;
+					return true;
+				}
+			}
+
+			// the rest of this segment is empty, so go on to the next one
+			if (segmentIndex + 1 >= segments.length)
+			{
+				segment = null;
+				return false;
+			}
+			openSegment(segments[++segmentIndex]);
+		}
+	}
+
+	private void openSegment(File file) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (segment.capacity() < SessionLog.HEADER_SIZE || segment.getInt(0) != SessionLog.MAGIC)
+			throw new IOException(file + " is not a session log");
+		int version = segment.getInt(4);
+		if (version != SessionLog.VERSION)
+			throw new IOException("Unsupported session log version " + version + " in " + file);
+
+		// newer versions may add fields at the end of a record
+		recordSize = segment.getInt(8);
+		if (recordSize < SessionLog.RECORD_SIZE)
+			throw new IOException("Bad record size " + recordSize + " in " + file);
+		recordCount = Math.min(segment.getInt(12),
+				(segment.capacity() - SessionLog.HEADER_SIZE) / recordSize);
+
+		record = -1;
+		offset = SessionLog.HEADER_SIZE - recordSize;
+	}
+
+	/**
+	 * Gets when the problem was finished.
+	 * @return The time in milliseconds since the epoch.
+	 */
+	public long getTimestamp()
+	{
+		return segment.getLong(offset + SessionLog.TIMESTAMP_OFFSET);
+	}
+	/**
+	 * Gets the time taken.
+	 * @return The time in nanoseconds.
+	 */
+	public long getNanos()
+	{
+		return segment.getLong(offset + SessionLog.NANOS_OFFSET);
+	}
+	/**
+	 * Gets the operation.
+	 * @return The problem type.
+	 */
+	public ProblemType getType()
+	{
+		return TYPES[segment.get(offset + SessionLog.TYPE_OFFSET)];
+	}
+	/**
+	 * Gets the number on the left.
+	 * @return The first number.
+	 */
+	public int getFirstNum()
+	{
+		return segment.getInt(offset + SessionLog.FIRST_NUM_OFFSET);
+	}
+	/**
+	 * Gets the number on the right.
+	 * @return The second number.
+	 */
+	public int getSecondNum()
+	{
+		return segment.getInt(offset + SessionLog.SECOND_NUM_OFFSET);
+	}
+	/**
+	 * Gets the last answer given.
+	 * @return The answer given.
+	 */
+	public int getAnswerGiven()
+	{
+		return segment.getInt(offset + SessionLog.ANSWER_OFFSET);
+	}
+	/**
+	 * Gets whether the problem was answered correctly.
+	 * @return Whether it was correct.
+	 */
+	public boolean isCorrect()
+	{
+		return segment.get(offset + SessionLog.CORRECT_OFFSET) != 0;
+	}
+	/**
+	 * Gets the number of tries taken.
+	 * @return The number of tries.
+	 */
+	public int getTries()
+	{
+		return segment.get(offset + SessionLog.TRIES_OFFSET);
+	}
+	/**
+	 * Gets the problem of the record.
+	 * @return A new Problem.
+	 */
+	public Problem getProblem()
+	{
+		return new Problem(getType(), getFirstNum(), getSecondNum());
+	}
+
+	/**
+	 * Stops reading. The mapped segments are released once they are garbage
+	 * collected.
+	 */
+	@Override
+	public void close()
+	{
+		segment = null;
+		segmentIndex = segments.length;
+	}
+
+	/**
+	 * Prints a report of a session log, by problem type.
+	 * @param args The log directory.
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length != 1)
+		{
+			System.err.println("Usage: java SessionLogReader directory");
+			System.exit(1);
+		}
+
+		long[] counts = new long[TYPES.length];
+		long[] correct = new long[TYPES.length];
+		long[] nanos = new long[TYPES.length];
+		long records = 0;
+
+		long startNanos = System.nanoTime();
+		try (SessionLogReader reader = new SessionLogReader(new File(args[0])))
+		{
+			while (reader.next())
+			{
+				int type = reader.getType().ordinal();
+				++counts[type];
+				if (reader.isCorrect())
+					++correct[type];
+				nanos[type] += reader.getNanos();
+				++records;
+			}
+		}
+		catch (IOException e)
+		{
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+
+		for (ProblemType type : TYPES)
+		{
+			int i = type.ordinal();
+			if (counts[i] > 0)
+				System.out.printf("%-15s %10d problems %6.1f%% correct %8s average%n", type,
+						counts[i], 100.0 * correct[i] / counts[i],
+						MathGameViewer.getTimeString(nanos[i] / counts[i]));
+		}
+		System.out.printf("%d records read in %.3f s (%.0f records/s)%n",
+				records, seconds, records / seconds);
+	}
+
+}
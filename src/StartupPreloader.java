@@ -0,0 +1,107 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads what the first game needs while the window is being built, so the
+ * New Game dialog starts a game from warm caches instead of decoding an image
+ * and building problem tables on the event dispatch thread. The game images
+ * are decoded into the viewer's image cache at the size a game in a new window
+ * needs, their image packs are opened and kept in the same cache, every
+ * problem table is built, the problem font is measured and drawn once, and the
+ * render metrics are published, each on its own background thread.
+ */
+public class StartupPreloader
+{
+
+	/**
+	 * The images the New Game dialog offers.
+	 */
+	public static final String[] IMAGES = { "image1.jpg", "image2.jpg", "image3.jpg" };
+
+	private static final int THREADS = 3;
+
+	private StartupPreloader() { }
+
+	/**
+	 * Starts preloading. Each part marks a {@link StartupTimer} phase when it
+	 * is done.
+	 * @param imageAssets The image cache the viewer will load game images and
+	 * image packs from.
+	 * @return A future that completes when everything has loaded. Parts that
+	 * fail are reported and left to load when they are first needed.
+	 */
+	public static CompletableFuture<Void> start(ImageAssetCache imageAssets)
+	{
+		final AtomicInteger threadCount = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS, runnable ->
+		{
+			Thread thread = new Thread(runnable, "startup-preload-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		CompletableFuture<?>[] parts = new CompletableFuture<?>[IMAGES.length * 2 + 3];
+		int part = 0;
+		for (String image : IMAGES)
+		{
+			// big enough for the first game unless the window grows, and small
+			// enough that large images are subsampled
+			parts[part++] = imageAssets.loadForDisplay(image, MathGameViewer.DEFAULT_BOARD_WIDTH,
+					MathGameViewer.DEFAULT_BOARD_HEIGHT, MathGameViewer.DEFAULT_GRID_SIZE).handle((decoded, error) ->
+			{
+				if (error != null)
+					System.err.println("Couldn't preload " + image + ": " + error.getMessage());
+				else
+					StartupTimer.get().mark(image);
+				return null;
+			});
+			parts[part++] = CompletableFuture.runAsync(() -> imageAssets.findPack(image), executor);
+		}
+		parts[part++] = CompletableFuture.runAsync(StartupPreloader::preloadProblemTables, executor)
+				.thenRun(() -> StartupTimer.get().mark("problem tables"));
+		parts[part++] = CompletableFuture.runAsync(StartupPreloader::preloadFont, executor)
+				.thenRun(() -> StartupTimer.get().mark("font"));
+		// JMX is slow to start and not needed to play
+		parts[part++] = CompletableFuture.runAsync(RenderMetrics::register, executor)
+				.thenRun(() -> StartupTimer.get().mark("metrics published"));
+
+		return CompletableFuture.allOf(parts).handle((done, error) ->
+		{
+			executor.shutdown();
+			if (error != null)
+				System.err.println("Preloading failed: " + error.getMessage());
+			StartupTimer.get().mark("preload done");
+			return null;
+		});
+	}
+
+	private static void preloadProblemTables()
+	{
+		for (ProblemType type : ProblemType.values())
+			for (int numFamily = 0; numFamily <= ProblemTable.NUMBER_MAX; ++numFamily)
+				ProblemTable.get(type, numFamily);
+	}
+
+	private static void preloadFont()
+	{
+		// laying out and drawing a problem loads the font and its glyphs
+		BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = image.createGraphics();
+		try
+		{
+			ProblemLayout layout = new ProblemLayout(g2, 200, 150, "12 \u00D7 12", 144, 3);
+			layout.drawProblem(g2);
+			for (int i = 0; i < 3; ++i)
+				layout.drawAnswerChar(g2, i, (char) ('0' + i));
+		}
+		finally
+		{
+			g2.dispose();
+		}
+	}
+
+}
@@ -0,0 +1,107 @@
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.GraphicsEnvironment;
+import java.awt.SplashScreen;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JWindow;
+import javax.swing.SwingConstants;
+
+/**
+ * Shows that the game is starting until its first frame is painted. If the
+ * JVM was started with a splash image, such as with {@code -splash:}, that
+ * splash is used, since it is up before any Swing class loads. Otherwise a
+ * small window is shown. Nothing is shown in a headless JVM.
+ * <p>
+ * Only use the splash on the event dispatch thread.
+ */
+public class StartupSplash
+{
+
+	private static final int WIDTH = 320;
+	private static final int HEIGHT = 120;
+
+	private final SplashScreen nativeSplash;
+	private final JWindow window;
+	private final JLabel statusLabel;
+
+	private StartupSplash(SplashScreen nativeSplash, JWindow window, JLabel statusLabel)
+	{
+		this.nativeSplash = nativeSplash;
+		this.window = window;
+		this.statusLabel = statusLabel;
+	}
+
+	/**
+	 * Shows the splash.
+	 * @return The splash.
+	 */
+	public static StartupSplash show()
+	{
+		if (GraphicsEnvironment.isHeadless())
+			return new StartupSplash(null, null, null);
+
+		SplashScreen nativeSplash = SplashScreen.getSplashScreen();
+		if (nativeSplash != null)
+			return new StartupSplash(nativeSplash, null, null);
+
+		JLabel titleLabel = new JLabel("Math Game", SwingConstants.CENTER);
+		titleLabel.setFont(titleLabel.getFont().deriveFont(Font.BOLD, 24f));
+		JLabel statusLabel = new JLabel("Starting...", SwingConstants.CENTER);
+
+		JPanel content = new JPanel(new BorderLayout());
+		content.setBackground(Color.WHITE);
+		content.setBorder(BorderFactory.createLineBorder(Color.GRAY));
+		content.add(titleLabel, BorderLayout.CENTER);
+		content.add(statusLabel, BorderLayout.SOUTH);
+
+		JWindow window = new JWindow();
+		window.setContentPane(content);
+		window.setSize(WIDTH, HEIGHT);
+		window.setLocationRelativeTo(null);
+		window.setVisible(true);
+		return new StartupSplash(null, window, statusLabel);
+	}
+
+	/**
+	 * Shows what is being done.
+	 * @param status The status, such as "Building window".
+	 */
+	public void setStatus(String status)
+	{
+		if (statusLabel != null)
+		{
+			statusLabel.setText(status);
+			// the event dispatch thread is busy starting up, so paint now
+			statusLabel.paintImmediately(0, 0, statusLabel.getWidth(), statusLabel.getHeight());
+		}
+		else if (nativeSplash != null && nativeSplash.isVisible())
+		{
+			Graphics2D g2 = nativeSplash.createGraphics();
+			int width = nativeSplash.getSize().width;
+			int height = nativeSplash.getSize().height;
+			g2.setColor(Color.WHITE);
+			g2.fillRect(0, height - 24, width, 24);
+			g2.setColor(Color.BLACK);
+			g2.drawString(status, 8, height - 8);
+			g2.dispose();
+			nativeSplash.update();
+		}
+	}
+
+	/**
+	 * Closes the splash.
+	 */
+	public void close()
+	{
+		if (window != null)
+			window.dispose();
+		else if (nativeSplash != null && nativeSplash.isVisible())
+			nativeSplash.close();
+	}
+
+}
@@ -0,0 +1,140 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Records how long after the JVM started each phase of starting the game was
+ * reached, such as the window being built or the first frame being painted,
+ * so the time to the first interactive frame can be tracked. Phases can be
+ * marked from any thread, and are logged as they are reached if logging is on.
+ */
+public class StartupTimer
+{
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private static final StartupTimer instance = new StartupTimer();
+
+	private final long originNanos;
+	private final List<Phase> phases = new ArrayList<Phase>();
+	private volatile boolean logging;
+
+	private StartupTimer()
+	{
+		// count from the JVM starting, not from this class loading
+		long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+		originNanos = System.nanoTime() - uptimeMillis * NANOS_PER_MILLI;
+	}
+
+	/**
+	 * Gets the timer for the program.
+	 * @return The timer.
+	 */
+	public static StartupTimer get()
+	{
+		return instance;
+	}
+
+	/**
+	 * Sets whether each phase is logged to standard error as it is reached.
+	 * @param logging Whether to log phases.
+	 */
+	public void setLogging(boolean logging)
+	{
+		this.logging = logging;
+	}
+
+	/**
+	 * Records a phase being reached now.
+	 * @param name The name of the phase.
+	 */
+	public void mark(String name)
+	{
+		long nanos = System.nanoTime() - originNanos;
+		long previousNanos;
+		synchronized (phases)
+		{
+			previousNanos = phases.isEmpty() ? 0 : phases.get(phases.size() - 1).nanos;
+			phases.add(new Phase(name, nanos, Thread.currentThread().getName()));
+		}
+
+		if (logging)
+			System.err.printf("startup: %-20s %6.1f ms (+%.1f ms) on %s%n", name,
+					(double) nanos / NANOS_PER_MILLI, (double) (nanos - previousNanos) / NANOS_PER_MILLI,
+					Thread.currentThread().getName());
+	}
+
+	/**
+	 * Gets the phases reached so far, in the order they were reached.
+	 * @return The phases.
+	 */
+	public List<Phase> getPhases()
+	{
+		synchronized (phases)
+		{
+			return Collections.unmodifiableList(new ArrayList<Phase>(phases));
+		}
+	}
+	/**
+	 * Gets when a phase was reached.
+	 * @param name The name of the phase.
+	 * @return The time since the JVM started in nanoseconds, or -1 if the phase
+	 * hasn't been reached.
+	 */
+	public long getPhaseNanos(String name)
+	{
+		synchronized (phases)
+		{
+			for (Phase phase : phases)
+			{
+				if (phase.name.equals(name))
+					return phase.nanos;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * A phase of starting up and when it was reached.
+	 */
+	public static class Phase
+	{
+		private final String name;
+		private final long nanos;
+		private final String thread;
+
+		private Phase(String name, long nanos, String thread)
+		{
+			this.name = name;
+			this.nanos = nanos;
+			this.thread = thread;
+		}
+
+		/**
+		 * Gets the name of the phase.
+		 * @return The name.
+		 */
+		public String getName()
+		{
+			return name;
+		}
+		/**
+		 * Gets when the phase was reached.
+		 * @return The time since the JVM started in nanoseconds.
+		 */
+		public long getNanos()
+		{
+			return nanos;
+		}
+		/**
+		 * Gets the thread that reached the phase.
+		 * @return The thread name.
+		 */
+		public String getThread()
+		{
+			return thread;
+		}
+	}
+
+}
@@ -0,0 +1,84 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * The built-in problem generator, which deals boards from the precomputed
+ * {@link ProblemTable}s of one or more problem types.
+ */
+public class TableProblemGenerator implements ProblemGenerator
+{
+
+	public static final TableProblemGenerator ADDITION
+			= new TableProblemGenerator(ProblemType.ADDITION);
+	public static final TableProblemGenerator SUBTRACTION
+			= new TableProblemGenerator(ProblemType.SUBTRACTION);
+	public static final TableProblemGenerator MULTIPLICATION
+			= new TableProblemGenerator(ProblemType.MULTIPLICATION);
+	public static final TableProblemGenerator DIVISION
+			= new TableProblemGenerator(ProblemType.DIVISION);
+
+	private final ProblemType[] types;
+
+	/**
+	 * Initializes a TableProblemGenerator that mixes the given types.
+	 * @param types The problem type(s).
+	 */
+	public TableProblemGenerator(ProblemType... types)
+	{
+		if (types.length == 0)
+			throw new IllegalArgumentException("At least one problem type is needed");
+
+		this.types = types.clone();
+	}
+	/**
+	 * Initializes a TableProblemGenerator that mixes the given types.
+	 * @param types The problem type(s).
+	 */
+	public TableProblemGenerator(List<ProblemType> types)
+	{
+		this(types.toArray(new ProblemType[types.size()]));
+	}
+
+	/**
+	 * Gets the built-in generator for a single problem type.
+	 * @param type The problem type.
+	 * @return The generator.
+	 */
+	public static TableProblemGenerator forType(ProblemType type)
+	{
+		switch (type)
+		{
+			case ADDITION:
+				return ADDITION;
+			case SUBTRACTION:
+				return SUBTRACTION;
+			case MULTIPLICATION:
+				return MULTIPLICATION;
+			case DIVISION:
+				return DIVISION;
+			default:
+				throw new IllegalArgumentException("Unknown problem type " + type);
+		}
+	}
+
+	/**
+	 * Deals a board from the tables of all this generator's types without
+	 * replacement.
+	 */
+	@Override
+	public Problem[] generate(int numFamily, int count, SplittableRandom rng)
+	{
+		return ProblemTable.deal(types, numFamily, count, rng);
+	}
+
+	/**
+	 * Picks a type and then a problem of that type, each evenly.
+	 */
+	@Override
+	public Problem pick(int numFamily, SplittableRandom rng)
+	{
+		return ProblemTable.pick(Arrays.asList(types), numFamily, rng);
+	}
+
+}
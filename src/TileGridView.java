@@ -0,0 +1,544 @@
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JComponent;
+
+/**
+ * Draws a whole game board as one component, for boards too big to have a
+ * {@link MathProblemPanel} per tile, such as a 32x32 poster. Tiles are painted
+ * straight from the {@link GameModel}'s arrays, the mouse is mapped to a tile
+ * by arithmetic, and only the tiles that change are repainted, so the cost of
+ * a board grows with its tile data rather than with a component, listeners,
+ * and timers per tile. Boards can have any number of columns and rows.
+ * <p>
+ * Revealed tiles are cut from one copy of the image scaled to the board, so no
+ * tile images are made unless tiles are given. Tiles being revealed fade in
+ * from one animation that repaints just those tiles. The view plays by the same
+ * rules and timing as the problem panels. Its ProblemPanelEvents have no
+ * sender panel.
+ */
+public class TileGridView extends JComponent implements MouseListener, MouseMotionListener,
+		KeyListener, CaretClock.Caret, AnimationClock.Animation
+{
+
+	private static final long serialVersionUID = 1L;
+
+	private static final Color COVER_COLOR = Color.GRAY;
+	private static final Color HOVER_COLOR = Color.DARK_GRAY;
+	private static final long REVEAL_NANOS = TimeUnit.MILLISECONDS.toNanos(GameModel.REVEAL_FADE);
+
+	private final GameModel model;
+	private final int columns;
+	private final int rows;
+	private final GridIndex grid;
+	private final GameScheduler scheduler;
+	private final GameCommandQueue commands;
+	private final InputGate inputGate;
+	private final CaretClock caretClock;
+	private final AnimationClock animationClock;
+
+	private final ScaledImageCache scaledImage = new ScaledImageCache();
+	private Image[] tileImages;
+
+	// text layouts only for the tiles showing a problem, which are few
+	private final Map<Integer, ProblemLayout> layouts = new HashMap<Integer, ProblemLayout>();
+	// when each tile whose image is fading in was revealed
+	private final Map<Integer, Long> revealStarts = new HashMap<Integer, Long>();
+
+	private GameScheduler.Handle resultTask;
+	private char currentCaret = '_';
+
+	private final EventPipeline<ProblemPanelListener, ProblemPanelEvent> problemPanelListeners
+			= new EventPipeline<ProblemPanelListener, ProblemPanelEvent>(
+					"grid-problem-events", ProblemPanelListener::problemCompleted);
+
+	/**
+	 * Creates a TileGridView that shows a whole game.
+	 * @param model The game, with columns times rows tiles.
+	 * @param columns The number of columns.
+	 * @param rows The number of rows.
+	 * @param scheduler The scheduler for the game's timers.
+	 * @param caretClock The game's caret blink clock.
+	 * @param animationClock The game's render loop.
+	 * @param commands The game's command queue, which merges repaints.
+	 * @param inputGate The gate that holds back input while a result is shown.
+	 */
+	public TileGridView(GameModel model, int columns, int rows, GameScheduler scheduler,
+			CaretClock caretClock, AnimationClock animationClock,
+			GameCommandQueue commands, InputGate inputGate)
+	{
+		if (columns < 1 || rows < 1 || columns * rows != model.getTileCount())
+			throw new IllegalArgumentException("A " + columns + "x" + rows
+					+ " board doesn't fit a game of " + model.getTileCount() + " tiles");
+
+		this.model = model;
+		this.columns = columns;
+		this.rows = rows;
+		this.scheduler = scheduler;
+		this.caretClock = caretClock;
+		this.animationClock = animationClock;
+		this.commands = commands;
+		this.inputGate = inputGate;
+		grid = new GridIndex(model, this::repaintTile);
+
+		setOpaque(true);
+		setFocusable(true);
+		addMouseListener(this);
+		addMouseMotionListener(this);
+		addKeyListener(this);
+	}
+
+	/**
+	 * Gets the hovered and active tiles of the game.
+	 * @return The grid index.
+	 */
+	public GridIndex getGridIndex()
+	{
+		return grid;
+	}
+	/**
+	 * Gets the number of columns.
+	 * @return The number of columns.
+	 */
+	public int getColumns()
+	{
+		return columns;
+	}
+	/**
+	 * Gets the number of rows.
+	 * @return The number of rows.
+	 */
+	public int getRows()
+	{
+		return rows;
+	}
+
+	/**
+	 * Sets the image revealed under the whole board.
+	 * @param image The image, or null to leave revealed tiles blank.
+	 */
+	public void setImage(Image image)
+	{
+		tileImages = null;
+		scaledImage.setSource(image);
+		repaintRevealed();
+	}
+	/**
+	 * Sets a separate image for each tile instead of one image for the board.
+	 * @param tileImages The image for each tile.
+	 */
+	public void setTileImages(Image[] tileImages)
+	{
+		this.tileImages = tileImages;
+		scaledImage.setSource(null);
+		repaintRevealed();
+	}
+
+	/**
+	 * Cancels the view's pending timers and stops delivering events to
+	 * asynchronous listeners. Call this when the view is thrown away.
+	 */
+	public void dispose()
+	{
+		if (resultTask != null)
+			resultTask.cancel();
+		caretClock.stop(this);
+		animationClock.stop(this);
+		problemPanelListeners.close();
+	}
+
+	/**
+	 * Gets the tile at a point.
+	 * @param x The x coordinate.
+	 * @param y The y coordinate.
+	 * @return The tile, or -1 if the point is off the board.
+	 */
+	public int getTileAt(int x, int y)
+	{
+		int width = getWidth();
+		int height = getHeight();
+		if (x < 0 || y < 0 || x >= width || y >= height)
+			return -1;
+
+		return rowAt(y, height) * columns + columnAt(x, width);
+	}
+	/**
+	 * Gets the bounds of a tile.
+	 * @param tile The tile.
+	 * @return The bounds.
+	 */
+	public Rectangle getTileBounds(int tile)
+	{
+		int column = tile % columns;
+		int row = tile / columns;
+		int x = edge(column, columns, getWidth());
+		int y = edge(row, rows, getHeight());
+		return new Rectangle(x, y, edge(column + 1, columns, getWidth()) - x,
+				edge(row + 1, rows, getHeight()) - y);
+	}
+
+	/**
+	 * Paints the tiles the clip touches.
+	 */
+	@Override
+	protected void paintComponent(Graphics g)
+	{
+		Graphics2D g2 = (Graphics2D) g;
+		Rectangle clip = g2.getClipBounds();
+		int width = getWidth();
+		int height = getHeight();
+		if (clip == null)
+			clip = new Rectangle(0, 0, width, height);
+		if (width <= 0 || height <= 0 || clip.isEmpty())
+			return;
+
+		g2.setColor(getBackground());
+		g2.fillRect(clip.x, clip.y, clip.width, clip.height);
+
+		int firstColumn = columnAt(Math.max(clip.x, 0), width);
+		int lastColumn = columnAt(Math.min(clip.x + clip.width, width) - 1, width);
+		int firstRow = rowAt(Math.max(clip.y, 0), height);
+		int lastRow = rowAt(Math.min(clip.y + clip.height, height) - 1, height);
+		Shape oldClip = g2.getClip();
+
+		for (int row = firstRow; row <= lastRow; ++row)
+		{
+			int y = edge(row, rows, height);
+			int tileHeight = edge(row + 1, rows, height) - y;
+
+			for (int column = firstColumn; column <= lastColumn; ++column)
+			{
+				long startNanos = System.nanoTime();
+				int tile = row * columns + column;
+				int x = edge(column, columns, width);
+				int tileWidth = edge(column + 1, columns, width) - x;
+				PanelState state = model.getPanelState(tile);
+
+				switch (state)
+				{
+					case COVER:
+						layouts.remove(tile);
+						g2.setColor(grid.getHoveredTile() == tile ? HOVER_COLOR : COVER_COLOR);
+						g2.fillRect(x, y, tileWidth - 1, tileHeight - 1);
+						g2.setColor(Color.BLACK);
+						g2.drawRect(x, y, tileWidth - 1, tileHeight - 1);
+						break;
+					case PROBLEM:
+						g2.translate(x, y);
+						paintProblem(g2, tile, tileWidth, tileHeight);
+						g2.translate(-x, -y);
+						break;
+					case IMAGE:
+						float revealed = getRevealProgress(tile, startNanos);
+						Composite oldComposite = g2.getComposite();
+						if (revealed < 1)
+						{
+							// fade from the answered problem to the image
+							g2.translate(x, y);
+							paintProblem(g2, tile, tileWidth, tileHeight);
+							g2.translate(-x, -y);
+							g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, revealed));
+						}
+						else
+							layouts.remove(tile);
+						g2.clipRect(x, y, tileWidth, tileHeight);
+						if (tileImages != null && tileImages[tile] != null)
+							g2.drawImage(tileImages[tile], x, y, tileWidth, tileHeight, this);
+						else if (scaledImage.getSource() != null)
+							scaledImage.paint(g2, width, height, this);
+						g2.setClip(oldClip);
+						g2.setComposite(oldComposite);
+						break;
+				}
+
+				RenderMetrics.get().recordPaint(state, System.nanoTime() - startNanos);
+			}
+		}
+	}
+
+	private void paintProblem(Graphics2D g2, int tile, int width, int height)
+	{
+		Problem problem = model.getProblem(tile);
+		ProblemState problemState = model.getProblemState(tile);
+		AnswerBuffer answer = model.getAnswer(tile);
+
+		ProblemLayout layout = layouts.get(tile);
+		if (layout == null || !layout.matches(g2, width, height,
+				problem.getText(), problem.getAnswer(), answer.getWidth()))
+		{
+			layout = new ProblemLayout(g2, width, height,
+					problem.getText(), problem.getAnswer(), answer.getWidth());
+			layouts.put(tile, layout);
+		}
+
+		// only the tile being worked on shows a caret
+		char caret = tile == grid.getActiveTile() ? currentCaret : ' ';
+		layout.drawPanel(g2, answer, problemState, caret);
+	}
+
+	@Override
+	public void mouseClicked(MouseEvent e)
+	{
+		// do nothing
+	}
+	/**
+	 * Processes the cursor entering the board.
+	 */
+	@Override
+	public void mouseEntered(MouseEvent e)
+	{
+		mouseMoved(e);
+	}
+	/**
+	 * Processes the cursor leaving the board.
+	 */
+	@Override
+	public void mouseExited(MouseEvent e)
+	{
+		if (inputGate.admit())
+			grid.setHoveredTile(-1);
+	}
+	/**
+	 * Processes the cursor moving over the board.
+	 */
+	@Override
+	public void mouseMoved(MouseEvent e)
+	{
+		if (inputGate.admit())
+			grid.setHoveredTile(getTileAt(e.getX(), e.getY()));
+	}
+	@Override
+	public void mouseDragged(MouseEvent e)
+	{
+		// do nothing
+	}
+	/**
+	 * Processes the mouse being pressed on a tile.
+	 */
+	@Override
+	public void mousePressed(MouseEvent e)
+	{
+		if (!inputGate.admit())
+			return;
+
+		int tile = getTileAt(e.getX(), e.getY());
+		// opening this tile covers the one being worked on
+		if (tile >= 0 && grid.open(tile, System.nanoTime()))
+		{
+			currentCaret = '_';
+			caretClock.start(this);
+		}
+
+		requestFocusInWindow();
+	}
+	@Override
+	public void mouseReleased(MouseEvent e)
+	{
+		// do nothing
+	}
+
+	/**
+	 * Processes a key being pressed on the tile being worked on.
+	 */
+	@Override
+	public void keyPressed(KeyEvent e)
+	{
+		int tile = grid.getActiveTile();
+		if (tile < 0 || !inputGate.admit() || !model.isEditable(tile))
+			return;
+
+		if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE)
+		{
+			// remove the last digit typed
+			model.backspace(tile);
+		}
+		else if (e.getKeyCode() == KeyEvent.VK_ENTER)
+		{
+			ProblemState result = model.submit(tile, System.nanoTime());
+
+			if (result == ProblemState.CORRECT || result == ProblemState.INCORRECT)
+			{
+				resultTask = inputGate.showResult(model, tile, result, scheduler, () ->
+				{
+					revealStarts.put(tile, System.nanoTime());
+					animationClock.start(this);
+					repaintTile(tile);
+				}, () ->
+				{
+					currentCaret = '_';
+					repaintTile(tile);
+				});
+			}
+
+			if (result == ProblemState.CORRECT)
+				fireProblemCompleted(tile, true);
+			else if (result == ProblemState.INCORRECT_FINAL)
+				fireProblemCompleted(tile, false);
+		}
+		else
+		{
+			char key = e.getKeyChar();
+
+			// the answer ignores digits once it is full
+			if (key >= '0' && key <= '9')
+				model.typeDigit(tile, key - '0');
+		}
+
+		repaintTile(tile);
+	}
+	@Override
+	public void keyReleased(KeyEvent e)
+	{
+		// do nothing
+	}
+	@Override
+	public void keyTyped(KeyEvent e)
+	{
+		// do nothing
+	}
+
+	/**
+	 * Blinks the caret of the tile being worked on. Called by the caret clock.
+	 * @return Whether the caret should keep blinking.
+	 */
+	@Override
+	public boolean blinkCaret()
+	{
+		int tile = grid.getActiveTile();
+		if (tile < 0)
+			return false;
+
+		if (model.getProblemState(tile) == ProblemState.NORMAL)
+		{
+			currentCaret = currentCaret == '_' ? ' ' : '_';
+			repaintTile(tile);
+		}
+		return true;
+	}
+
+	/**
+	 * Repaints the tiles whose images are fading in. Called by the animation
+	 * clock.
+	 * @return Whether any image is still fading in.
+	 */
+	@Override
+	public boolean frame(long nowNanos)
+	{
+		for (Iterator<Map.Entry<Integer, Long>> i = revealStarts.entrySet().iterator(); i.hasNext();)
+		{
+			Map.Entry<Integer, Long> entry = i.next();
+			repaintTile(entry.getKey());
+			// the last frame paints the image fully shown
+			if (nowNanos - entry.getValue() >= REVEAL_NANOS)
+				i.remove();
+		}
+		return !revealStarts.isEmpty();
+	}
+
+	/**
+	 * Gets how far a tile's image has faded in.
+	 * @param tile The tile.
+	 * @param nowNanos The current time.
+	 * @return From 0 for just revealed to 1 for fully shown.
+	 */
+	private float getRevealProgress(int tile, long nowNanos)
+	{
+		Long revealStart = revealStarts.get(tile);
+		if (revealStart == null)
+			return 1;
+
+		return Math.max(0, Math.min(1, (float) (nowNanos - revealStart) / REVEAL_NANOS));
+	}
+
+	/**
+	 * Adds a ProblemPanelListener that is told synchronously on the event
+	 * dispatch thread.
+	 * @param listener The listener to add.
+	 */
+	public void addProblemPanelListener(ProblemPanelListener listener)
+	{
+		problemPanelListeners.add(listener);
+	}
+	/**
+	 * Adds a ProblemPanelListener.
+	 * @param listener The listener to add.
+	 * @param delivery How the listener is told.
+	 */
+	public void addProblemPanelListener(ProblemPanelListener listener, Delivery delivery)
+	{
+		problemPanelListeners.add(listener, delivery);
+	}
+	/**
+	 * Removes a ProblemPanelListener.
+	 * @param listener The listener to remove.
+	 */
+	public void removeProblemPanelListener(ProblemPanelListener listener)
+	{
+		problemPanelListeners.remove(listener);
+	}
+
+	private void fireProblemCompleted(int tile, boolean isCorrect)
+	{
+		problemPanelListeners.fire(new ProblemPanelEvent(null, model.getProblem(tile),
+				model.getAnswer(tile).getValue(), isCorrect, model.getTries(tile),
+				model.getTotalNanos(tile)));
+	}
+
+	private void repaintTile(int tile)
+	{
+		Rectangle bounds = getTileBounds(tile);
+		commands.repaint(this, bounds.x, bounds.y, bounds.width, bounds.height);
+	}
+
+	private void repaintRevealed()
+	{
+		if (model.getPanelStateCount(PanelState.IMAGE) > 0)
+			commands.repaint(this);
+	}
+
+	/**
+	 * Gets where the given column or row starts, spreading the leftover pixels
+	 * evenly across the board.
+	 */
+	private static int edge(int index, int count, int length)
+	{
+		return (int) ((long) index * length / count);
+	}
+
+	private int columnAt(int x, int width)
+	{
+		return cellAt(x, columns, width);
+	}
+
+	private int rowAt(int y, int height)
+	{
+		return cellAt(y, rows, height);
+	}
+
+	private static int cellAt(int position, int count, int length)
+	{
+		int cell = (int) Math.min((long) position * count / length, count - 1);
+		// rounding can put the guess one cell off at an edge
+		while (cell > 0 && position < edge(cell, count, length))
+			--cell;
+		while (cell < count - 1 && position >= edge(cell + 1, count, length))
+			++cell;
+		return cell;
+	}
+
+}
@@ -0,0 +1,105 @@
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.util.stream.IntStream;
+
+/**
+ * Splits an image into a grid of tiles using bulk raster copies.
+ */
+public class TileSlicer
+{
+
+	/**
+	 * Images with at least this many pixels are sliced on several cores.
+	 */
+	private static final long PARALLEL_PIXELS = 1 << 20;
+
+	private TileSlicer() { }
+
+	/**
+	 * Splits an image into equally sized tiles, ordered left to right and then
+	 * top to bottom. Any pixels left over from uneven division are dropped.
+	 * @param image The image to split.
+	 * @param columns The number of columns of tiles.
+	 * @param rows The number of rows of tiles.
+	 * @param config The configuration to make the tiles compatible with, or null
+	 * to use the default screen.
+	 * @return The tiles.
+	 */
+	public static BufferedImage[] split(BufferedImage image, int columns, int rows,
+			GraphicsConfiguration config)
+	{
+		if (columns < 1 || rows < 1)
+			throw new IllegalArgumentException("Grid must have at least one row and column");
+
+		int tileWidth = image.getWidth() / columns;
+		int tileHeight = image.getHeight() / rows;
+		if (tileWidth < 1 || tileHeight < 1)
+			throw new IllegalArgumentException("Image is too small for a "
+					+ columns + "x" + rows + " grid");
+
+		GraphicsConfiguration target = config != null ? config : getDefaultConfiguration();
+		BufferedImage[] tiles = new BufferedImage[columns * rows];
+
+		IntStream indices = IntStream.range(0, tiles.length);
+		if ((long) image.getWidth() * image.getHeight() >= PARALLEL_PIXELS)
+			indices = indices.parallel();
+
+		indices.forEach(i -> tiles[i] = copyTile(image,
+				tileWidth * (i % columns), tileHeight * (i / columns),
+				tileWidth, tileHeight, target));
+
+		RenderMetrics.get().recordTilesCreated(tiles.length);
+		return tiles;
+	}
+
+	/**
+	 * Creates an empty tile in the display's preferred format.
+	 * @param width The width of the tile.
+	 * @param height The height of the tile.
+	 * @param config The configuration to make the tile compatible with, or null.
+	 * @return The tile.
+	 */
+	public static BufferedImage createTile(int width, int height, GraphicsConfiguration config)
+	{
+		if (config != null)
+			return config.createCompatibleImage(width, height, Transparency.OPAQUE);
+		return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+	}
+
+	private static BufferedImage copyTile(BufferedImage image, int x, int y,
+			int width, int height, GraphicsConfiguration config)
+	{
+		BufferedImage tile = createTile(width, height, config);
+
+		if (tile.getColorModel().equals(image.getColorModel())
+				&& tile.getSampleModel().getDataType() == image.getSampleModel().getDataType()
+				&& tile.getSampleModel().getNumDataElements() == image.getSampleModel().getNumDataElements())
+		{
+			// same pixel layout, so whole rows can be copied as data elements
+			Raster source = image.getRaster().createChild(x, y, width, height, 0, 0, null);
+			tile.getRaster().setDataElements(0, 0, source);
+		}
+		else
+		{
+			// let Java2D convert the pixels with its blit loops
+			Graphics2D g2 = tile.createGraphics();
+			g2.drawImage(image.getSubimage(x, y, width, height), 0, 0, null);
+			g2.dispose();
+		}
+
+		return tile;
+	}
+
+	private static GraphicsConfiguration getDefaultConfiguration()
+	{
+		if (GraphicsEnvironment.isHeadless())
+			return null;
+		return GraphicsEnvironment.getLocalGraphicsEnvironment()
+				.getDefaultScreenDevice().getDefaultConfiguration();
+	}
+
+}